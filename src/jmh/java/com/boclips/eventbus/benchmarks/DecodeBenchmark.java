@@ -0,0 +1,59 @@
+package com.boclips.eventbus.benchmarks;
+
+import com.boclips.eventbus.infrastructure.ObjectMapperProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.google.protobuf.ByteString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding a received message by first copying it into a String, as the subscriber used to, against reading it
+ * straight from the message bytes. Compare the {@code gc.alloc.rate.norm} figures.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecodeBenchmark {
+
+    @Param({EventFixtures.VIDEO_ANALYSED, EventFixtures.VIDEOS_UPDATED})
+    public String eventName;
+
+    private final ObjectMapper objectMapper = ObjectMapperProvider.get();
+    private Class<?> eventType;
+    private ObjectReader reader;
+    private ByteString payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        Object event = EventFixtures.byName(eventName);
+        eventType = event.getClass();
+        reader = objectMapper.readerFor(eventType);
+        payload = ByteString.copyFrom(objectMapper.writeValueAsBytes(event));
+    }
+
+    @Benchmark
+    public Object viaUtf8String() throws IOException {
+        return objectMapper.readValue(payload.toStringUtf8(), eventType);
+    }
+
+    @Benchmark
+    public Object viaByteStream() throws IOException {
+        return reader.readValue(payload.newInput());
+    }
+}
@@ -0,0 +1,60 @@
+package com.boclips.eventbus.benchmarks;
+
+import com.boclips.eventbus.BoclipsEventListener;
+import com.boclips.eventbus.config.EventConfigurationExtractor;
+import com.boclips.eventbus.config.EventListener;
+import com.boclips.eventbus.events.video.VideoSegmentPlayed;
+import com.boclips.eventbus.infrastructure.SynchronousFakeEventBus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DispatchBenchmark {
+
+    private final VideoSegmentPlayed event = EventFixtures.videoSegmentPlayed();
+    private final SynchronousFakeEventBus eventBus = new SynchronousFakeEventBus();
+    private EventListener listener;
+    private Blackhole blackhole;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        Listener bean = new Listener();
+        listener = new EventListener(bean, new EventConfigurationExtractor().getListenerMethods(bean).get(0));
+        eventBus.subscribe(VideoSegmentPlayed.class, listener::receive);
+    }
+
+    @Benchmark
+    public void listenerReceive() {
+        listener.receive(event);
+    }
+
+    @Benchmark
+    public void fakeEventBusPublish() {
+        eventBus.publish(event);
+        eventBus.clearState();
+    }
+
+    public class Listener {
+        @BoclipsEventListener
+        public void onSegmentPlayed(VideoSegmentPlayed segmentPlayed) {
+            blackhole.consume(segmentPlayed);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.boclips.eventbus.benchmarks;
+
+import com.boclips.eventbus.domain.AgeRange;
+import com.boclips.eventbus.domain.Subject;
+import com.boclips.eventbus.domain.SubjectId;
+import com.boclips.eventbus.domain.contentpartner.ChannelId;
+import com.boclips.eventbus.domain.video.PlaybackProviderType;
+import com.boclips.eventbus.domain.video.Video;
+import com.boclips.eventbus.domain.video.VideoId;
+import com.boclips.eventbus.domain.video.VideoType;
+import com.boclips.eventbus.events.collection.CollectionVideosBulkChanged;
+import com.boclips.eventbus.events.order.LegacyOrderSubmitted;
+import com.boclips.eventbus.events.video.VideoAnalysed;
+import com.boclips.eventbus.events.video.VideoSegmentPlayed;
+import com.boclips.eventbus.events.video.VideosUpdated;
+import com.boclips.eventbus.infrastructure.ObjectMapperProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Representative events for the benchmarks, built from the test fixtures where there is one.
+ */
+public final class EventFixtures {
+
+    public static final String VIDEOS_UPDATED = "videos-updated";
+    public static final String VIDEO_ANALYSED = "video-analysed";
+    public static final String VIDEO_SEGMENT_PLAYED = "video-segment-played";
+    public static final String LEGACY_ORDER_SUBMITTED = "legacy-order-submitted";
+    public static final String COLLECTION_VIDEOS_BULK_CHANGED = "collection-videos-bulk-changed";
+
+    private EventFixtures() {
+    }
+
+    public static Object byName(String eventName) {
+        switch (eventName) {
+            case VIDEOS_UPDATED:
+                return videosUpdated(500);
+            case VIDEO_ANALYSED:
+                return videoAnalysed(256 * 1024);
+            case VIDEO_SEGMENT_PLAYED:
+                return videoSegmentPlayed();
+            case LEGACY_ORDER_SUBMITTED:
+                return legacyOrderSubmitted();
+            case COLLECTION_VIDEOS_BULK_CHANGED:
+                return collectionVideosBulkChanged(2000);
+            default:
+                throw new IllegalArgumentException("No fixture for " + eventName);
+        }
+    }
+
+    static VideosUpdated videosUpdated(int videoCount) {
+        List<Video> videos = new ArrayList<>(videoCount);
+        for (int i = 0; i < videoCount; i++) {
+            videos.add(video("video-" + i));
+        }
+        return new VideosUpdated(videos);
+    }
+
+    static Video video(String id) {
+        return Video.builder()
+                .id(VideoId.of(id))
+                .channelId(new ChannelId("channel-id"))
+                .playbackProviderType(PlaybackProviderType.KALTURA)
+                .playbackId("playback-" + id)
+                .title("A video about photosynthesis and the carbon cycle")
+                .description("Plants convert light energy into chemical energy, releasing oxygen as a by-product.")
+                .subjects(Arrays.asList(new Subject(new SubjectId("biology"), "Biology"), new Subject(new SubjectId("chemistry"), "Chemistry")))
+                .ageRange(new AgeRange(11, 16))
+                .durationSeconds(180)
+                .type(VideoType.INSTRUCTIONAL)
+                .types(Collections.singletonList(VideoType.INSTRUCTIONAL))
+                .ingestedAt(ZonedDateTime.parse("2020-03-01T10:15:30Z"))
+                .releasedOn(LocalDate.parse("2019-11-05"))
+                .promoted(false)
+                .topics(Collections.emptyList())
+                .keywords(Arrays.asList("plants", "energy", "oxygen", "chlorophyll"))
+                .sourceVideoReference("reference-" + id)
+                .hasTranscript(true)
+                .categories(Collections.emptyMap())
+                .build();
+    }
+
+    static VideoAnalysed videoAnalysed(int textBytes) {
+        VideoAnalysed videoAnalysed = fromJson("analysed-video.json", VideoAnalysed.class);
+        videoAnalysed.setTranscript(repeat("Plants convert light energy into chemical energy. ", textBytes));
+        videoAnalysed.getCaptions().setContent(repeat("00:00:01.000 --> 00:00:04.000\nPlants convert light energy.\n\n", textBytes));
+        return videoAnalysed;
+    }
+
+    static VideoSegmentPlayed videoSegmentPlayed() {
+        return VideoSegmentPlayed.builder()
+                .timestamp(ZonedDateTime.parse("2020-03-01T10:15:30.123Z"))
+                .url("https://teachers.boclips.com/videos/video-123")
+                .videoId("video-123")
+                .userId("user-456")
+                .deviceId("device-789")
+                .query("photosynthesis")
+                .videoIndex(3)
+                .segmentStartSeconds(10L)
+                .segmentEndSeconds(20L)
+                .build();
+    }
+
+    static LegacyOrderSubmitted legacyOrderSubmitted() {
+        return fromJson("legacy-order.json", LegacyOrderSubmitted.class);
+    }
+
+    static CollectionVideosBulkChanged collectionVideosBulkChanged(int videoCount) {
+        List<String> videoIds = new ArrayList<>(videoCount);
+        for (int i = 0; i < videoCount; i++) {
+            videoIds.add(String.format("5c542ab95438cdbcb56d%04x", i));
+        }
+        return CollectionVideosBulkChanged.builder()
+                .userId("user-456")
+                .collectionId("collection-1")
+                .videoIds(videoIds)
+                .build();
+    }
+
+    private static String repeat(String text, int length) {
+        StringBuilder builder = new StringBuilder(length + text.length());
+        while (builder.length() < length) {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+
+    private static <T> T fromJson(String resource, Class<T> type) {
+        try (InputStream stream = EventFixtures.class.getClassLoader().getResourceAsStream(resource)) {
+            return ObjectMapperProvider.get().readValue(stream, type);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not load fixture " + resource, e);
+        }
+    }
+}
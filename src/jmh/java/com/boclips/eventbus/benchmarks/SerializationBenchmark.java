@@ -0,0 +1,63 @@
+package com.boclips.eventbus.benchmarks;
+
+import com.boclips.eventbus.infrastructure.EventSerializer;
+import com.boclips.eventbus.infrastructure.ObjectMapperProvider;
+import com.google.protobuf.ByteString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({
+            EventFixtures.VIDEOS_UPDATED,
+            EventFixtures.VIDEO_ANALYSED,
+            EventFixtures.VIDEO_SEGMENT_PLAYED,
+            EventFixtures.LEGACY_ORDER_SUBMITTED,
+            EventFixtures.COLLECTION_VIDEOS_BULK_CHANGED
+    })
+    public String eventName;
+
+    @Param({"json", "smile"})
+    public String format;
+
+    private EventSerializer serializer;
+    private Object event;
+    private Class<?> eventType;
+    private ByteString payload;
+
+    @Setup
+    public void setUp() {
+        serializer = new EventSerializer("smile".equals(format) ? ObjectMapperProvider.getSmile() : ObjectMapperProvider.get());
+        event = EventFixtures.byName(eventName);
+        eventType = event.getClass();
+        serializer.register(eventType);
+        payload = serializer.serialiseToByteString(event);
+    }
+
+    @Benchmark
+    public ByteString serialise() {
+        return serializer.serialiseToByteString(event);
+    }
+
+    @Benchmark
+    public Object deserialise() {
+        return serializer.deserialise(eventType, payload);
+    }
+}
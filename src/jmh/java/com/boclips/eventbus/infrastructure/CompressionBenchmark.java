@@ -0,0 +1,68 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.benchmarks.EventFixtures;
+import com.boclips.eventbus.config.Compression;
+import com.google.protobuf.ByteString;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost of compressing and decompressing the large events. Compressing also counts the bytes going in and coming
+ * out, whose quotient is the compression ratio of the fixture. It lives next to {@link PayloadCompression}, which is
+ * internal to the bus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({EventFixtures.VIDEOS_UPDATED, EventFixtures.VIDEO_ANALYSED, EventFixtures.COLLECTION_VIDEOS_BULK_CHANGED})
+    public String eventName;
+
+    @Param({"GZIP"})
+    public Compression compression;
+
+    private ByteString payload;
+    private ByteString compressed;
+
+    @Setup
+    public void setUp() {
+        payload = new EventSerializer().serialiseToByteString(EventFixtures.byName(eventName));
+        compressed = PayloadCompression.compress(payload, compression);
+    }
+
+    @Benchmark
+    public ByteString compress(Sizes sizes) {
+        ByteString result = PayloadCompression.compress(payload, compression);
+        sizes.payloadBytes += payload.size();
+        sizes.compressedBytes += result.size();
+        return result;
+    }
+
+    @Benchmark
+    public ByteString decompress() {
+        return PayloadCompression.decompress(compressed, compression.getContentEncoding());
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Sizes {
+        public long payloadBytes;
+        public long compressedBytes;
+    }
+}
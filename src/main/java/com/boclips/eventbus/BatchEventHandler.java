@@ -0,0 +1,7 @@
+package com.boclips.eventbus;
+
+import java.util.List;
+
+public interface BatchEventHandler<T> {
+    void handle(List<T> events);
+}
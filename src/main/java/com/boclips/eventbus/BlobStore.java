@@ -0,0 +1,17 @@
+package com.boclips.eventbus;
+
+import java.io.IOException;
+
+/**
+ * Keeps the payloads of events too large to be worth sending through Pub/Sub, see
+ * {@link BoclipsEvent#largeProperties()}. Blobs are written once and never deleted by the event bus, so the store
+ * should expire them some time after every consumer has read them, e.g. with a bucket lifecycle rule.
+ */
+public interface BlobStore {
+    void put(String key, byte[] content) throws IOException;
+
+    /**
+     * @throws java.io.FileNotFoundException when there is no blob with the key
+     */
+    byte[] get(String key) throws IOException;
+}
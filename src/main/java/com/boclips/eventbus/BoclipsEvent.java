@@ -9,4 +9,42 @@ import java.lang.annotation.Target;
 @Target(ElementType.TYPE)
 public @interface BoclipsEvent {
     String value();
+
+    /**
+     * Path to the id of the entity the event is about, resolved through getters, e.g. {@code "video.id.value"}.
+     * Events with the same entity id can be handled in order.
+     */
+    String entityId() default "";
+
+    /**
+     * Version of the event's shape, published with every event so that consumers can tell versions apart without
+     * decoding them.
+     */
+    int schemaVersion() default 1;
+
+    /**
+     * Path to the event's subtype, resolved through getters, e.g. {@code "subtype"}. It is published as the
+     * {@code subtype} message attribute, so that listeners can subscribe to a few subtypes only.
+     */
+    String subtype() default "";
+
+    /**
+     * Name of a list property of the event, e.g. {@code "videos"}, whose elements listeners can receive one at a time
+     * as they are parsed, instead of the whole event at once.
+     */
+    String elements() default "";
+
+    /**
+     * Whether the event may be published in chunks, each a copy of the event with a slice of its {@link #elements()}.
+     * Only for events whose chunks, handled one by one, mean the same as the whole event, e.g. a list of updates. Not
+     * for events whose list replaces a previous one, which a single chunk would truncate.
+     */
+    boolean chunkable() default false;
+
+    /**
+     * Paths to large properties of the event, e.g. {@code "captions.content"}. On topics with a claim-check threshold,
+     * bigger events are put in the {@link BlobStore} and published without these properties, which consumers only
+     * fetch from the store when they resolve claim checks.
+     */
+    String[] largeProperties() default {};
 }
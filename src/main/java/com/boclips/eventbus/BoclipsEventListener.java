@@ -8,4 +8,8 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
 public @interface BoclipsEventListener {
+    /**
+     * Only receive events with one of these subtypes. Requires the event to declare {@link BoclipsEvent#subtype()}.
+     */
+    String[] subtypes() default {};
 }
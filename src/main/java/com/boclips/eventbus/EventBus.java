@@ -1,11 +1,58 @@
 package com.boclips.eventbus;
 
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
 public interface EventBus {
     <T> void subscribe(Class<T> eventType, EventHandler<? super T> eventHandler);
 
+    /**
+     * Subscribes a handler to the events with one of the given subtypes only, or to all events when there are none.
+     * Where the broker supports it, other events are filtered out before they are delivered.
+     */
+    <T> void subscribe(Class<T> eventType, Set<String> subtypes, EventHandler<? super T> eventHandler);
+
+    /**
+     * Subscribes a handler that receives events in micro-batches. Messages are acknowledged once the handler returns
+     * and redelivered if it throws.
+     */
+    <T> void subscribeBatch(Class<T> eventType, BatchEventHandler<T> batchEventHandler);
+
+    <T> void subscribeBatch(Class<T> eventType, Set<String> subtypes, BatchEventHandler<T> batchEventHandler);
+
+    /**
+     * Subscribes a handler to the elements of the list that the event type declares in {@link BoclipsEvent#elements()},
+     * e.g. the videos of a {@code VideosUpdated}, so that large events are never fully materialised. The event is
+     * acknowledged once the handler returns and redelivered if it throws.
+     */
+    <T, E> void subscribeElements(Class<T> eventType, Class<E> elementType, EventElementsHandler<E> eventElementsHandler);
+
     void unsubscribe(Class<?> eventType);
 
+    /**
+     * Re-drives up to {@code maxEvents} dead-lettered events of this type through the listener currently subscribed
+     * to them, in batches, and returns how many were handled. An event that keeps failing is left dead-lettered and
+     * skipped for the rest of the replay, so that it does not hold up the events behind it.
+     */
+    <T> int replayDeadLetters(Class<T> eventType, int maxEvents);
+
     <T> void publish(Iterable<T> events);
 
     <T> void publish(T event);
+
+    /**
+     * Publishes all events without waiting for the broker. The returned future completes with the message ids
+     * (in the order the events were given) once every message has been acknowledged by the broker, or
+     * exceptionally if any of them failed. With an outbox, the events are acknowledged once relayed from it; the
+     * future completes exceptionally if the bus is closed before then, even though the events are relayed after
+     * a restart.
+     */
+    <T> CompletableFuture<List<String>> publishAsync(Iterable<T> events);
+
+    /**
+     * Publishes the event without waiting for the broker. The returned future completes with the message id once
+     * the broker has acknowledged the message, see {@link #publishAsync(Iterable)}.
+     */
+    <T> CompletableFuture<String> publishAsync(T event);
 }
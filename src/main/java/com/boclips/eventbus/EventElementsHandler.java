@@ -0,0 +1,11 @@
+package com.boclips.eventbus;
+
+import java.util.Iterator;
+
+/**
+ * Receives the elements of an event one at a time, each parsed only when the iterator reaches it. The iterator is only
+ * valid while {@link #handle(Iterator)} runs, and a retried event is handled again from its first element.
+ */
+public interface EventElementsHandler<E> {
+    void handle(Iterator<E> elements);
+}
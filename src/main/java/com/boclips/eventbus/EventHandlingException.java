@@ -0,0 +1,8 @@
+package com.boclips.eventbus;
+
+public class EventHandlingException extends RuntimeException {
+
+    public EventHandlingException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
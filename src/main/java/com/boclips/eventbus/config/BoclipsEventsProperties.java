@@ -4,6 +4,9 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Configuration
 @ConfigurationProperties(prefix = "pubsub")
 @Data
@@ -11,4 +14,26 @@ public class BoclipsEventsProperties {
     private String project;
     private String consumerGroup;
     private String secret;
+    /**
+     * (De)serialise events with a shared, bytecode-generating mapper like {@link com.boclips.eventbus.infrastructure.ObjectMapperProvider#getTuned()}.
+     */
+    private boolean tunedSerialisation = false;
+    private OutboxProperties outbox = new OutboxProperties();
+    private TopicProperties defaults = TopicProperties.defaults();
+    private Map<String, TopicProperties> topics = new HashMap<>();
+
+    /**
+     * The topic's properties, falling back to the defaults. Fails on settings Pub/Sub would reject, so that they
+     * surface when subscribing at startup.
+     */
+    public TopicProperties forTopic(String topicName) {
+        TopicProperties resolvedDefaults = defaults.withFallback(TopicProperties.defaults());
+        TopicProperties topic = topics.get(topicName);
+        TopicProperties resolved = topic == null ? resolvedDefaults : topic.withFallback(resolvedDefaults);
+        Integer maxDeliveryAttempts = resolved.getMaxDeliveryAttempts();
+        if (maxDeliveryAttempts != null && (maxDeliveryAttempts < 5 || maxDeliveryAttempts > 100)) {
+            throw new InvalidMessagingConfiguration(String.format("max-delivery-attempts of %s is %d, but Pub/Sub only allows 5 to 100", topicName, maxDeliveryAttempts));
+        }
+        return resolved;
+    }
 }
@@ -2,11 +2,27 @@ package com.boclips.eventbus.config;
 
 import com.boclips.eventbus.EventBus;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 
-public class BoclipsSubscriptionRegistrationPostProcessor implements BeanPostProcessor {
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Collects {@link com.boclips.eventbus.BoclipsEventListener} methods while the context starts and subscribes them all
+ * at once, in parallel, once every singleton exists. Listeners on beans created later are subscribed straight away.
+ */
+public class BoclipsSubscriptionRegistrationPostProcessor implements BeanPostProcessor, SmartInitializingSingleton {
+    private static final int MAX_PARALLEL_SUBSCRIPTIONS = 8;
+
     private EventConfigurationExtractor eventConfigurationExtractor;
     private EventBus eventBus;
+    private final List<EventListener> pendingListeners = new ArrayList<>();
+    private boolean singletonsInstantiated = false;
 
     public BoclipsSubscriptionRegistrationPostProcessor(EventBus eventBus) {
         this.eventConfigurationExtractor = new EventConfigurationExtractor();
@@ -17,8 +33,57 @@ public class BoclipsSubscriptionRegistrationPostProcessor implements BeanPostPro
     public Object postProcessAfterInitialization(Object object, String beanName) throws BeansException {
         for (EventConfigurationExtractor.ListenerMethodInfo listenerMethod : eventConfigurationExtractor.getListenerMethods(object)) {
             EventListener listener = new EventListener(object, listenerMethod);
-            eventBus.subscribe(listener.getEventType(), listener::receive);
+            synchronized (pendingListeners) {
+                if (singletonsInstantiated) {
+                    subscribe(listener);
+                } else {
+                    pendingListeners.add(listener);
+                }
+            }
         }
         return object;
     }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<EventListener> listeners;
+        synchronized (pendingListeners) {
+            singletonsInstantiated = true;
+            listeners = new ArrayList<>(pendingListeners);
+            pendingListeners.clear();
+        }
+        if (listeners.isEmpty()) {
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(listeners.size(), MAX_PARALLEL_SUBSCRIPTIONS));
+        try {
+            List<CompletableFuture<Void>> subscriptions = new ArrayList<>();
+            for (EventListener listener : listeners) {
+                subscriptions.add(CompletableFuture.runAsync(() -> subscribe(listener), executor));
+            }
+            for (CompletableFuture<Void> subscription : subscriptions) {
+                subscription.join();
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void subscribe(EventListener listener) {
+        if (listener.isBatch()) {
+            subscribeBatch(listener.getEventType(), listener);
+        } else {
+            eventBus.subscribe(listener.getEventType(), listener.getSubtypes(), listener::receive);
+        }
+    }
+
+    private <T> void subscribeBatch(Class<T> eventType, EventListener listener) {
+        eventBus.subscribeBatch(eventType, listener.getSubtypes(), listener::receive);
+    }
 }
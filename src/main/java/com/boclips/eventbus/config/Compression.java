@@ -0,0 +1,20 @@
+package com.boclips.eventbus.config;
+
+/**
+ * How published payloads are compressed, named after the {@code contentEncoding} message attribute they are sent
+ * with.
+ */
+public enum Compression {
+    NONE("identity"),
+    GZIP("gzip");
+
+    private final String contentEncoding;
+
+    Compression(String contentEncoding) {
+        this.contentEncoding = contentEncoding;
+    }
+
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+}
@@ -5,13 +5,22 @@ import com.boclips.eventbus.BoclipsEventListener;
 import lombok.Builder;
 import lombok.Data;
 import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.util.ReflectionUtils;
 
+import java.beans.PropertyDescriptor;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class EventConfigurationExtractor {
     public String getEventName(Class<?> eventType) {
@@ -24,6 +33,70 @@ public class EventConfigurationExtractor {
         return boclipsEvent.value();
     }
 
+    /**
+     * The getter path to the id of the entity an event is about, or an empty string when the event does not declare one.
+     */
+    public String getEntityIdPath(Class<?> eventType) {
+        BoclipsEvent boclipsEvent = AnnotationUtils.findAnnotation(eventType, BoclipsEvent.class);
+        return boclipsEvent == null ? "" : boclipsEvent.entityId();
+    }
+
+    /**
+     * The getter path to the subtype of an event, or an empty string when the event does not declare one.
+     */
+    public String getSubtypePath(Class<?> eventType) {
+        BoclipsEvent boclipsEvent = AnnotationUtils.findAnnotation(eventType, BoclipsEvent.class);
+        return boclipsEvent == null ? "" : boclipsEvent.subtype();
+    }
+
+    /**
+     * The name of the list property whose elements can be streamed, or an empty string when the event does not declare one.
+     */
+    public String getElementsProperty(Class<?> eventType) {
+        BoclipsEvent boclipsEvent = AnnotationUtils.findAnnotation(eventType, BoclipsEvent.class);
+        return boclipsEvent == null ? "" : boclipsEvent.elements();
+    }
+
+    /**
+     * The type of the elements of {@link #getElementsProperty(Class)}.
+     */
+    public Class<?> getElementType(Class<?> eventType) {
+        String property = getElementsProperty(eventType);
+        if (property.isEmpty()) {
+            throw new InvalidMessagingConfiguration(eventType.getSimpleName() + " declares no elements to stream");
+        }
+        PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(eventType, property);
+        Class<?> elementType = descriptor == null || descriptor.getReadMethod() == null
+                ? null
+                : ResolvableType.forMethodReturnType(descriptor.getReadMethod()).asCollection().resolveGeneric(0);
+        if (elementType == null || !List.class.isAssignableFrom(descriptor.getPropertyType())) {
+            throw new InvalidMessagingConfiguration("Elements " + property + " of " + eventType.getName() + " must be a List of a concrete type");
+        }
+        return elementType;
+    }
+
+    /**
+     * The elements property of an event that may be published in chunks, or an empty string when it may not be.
+     */
+    public String getChunkableElementsProperty(Class<?> eventType) {
+        BoclipsEvent boclipsEvent = AnnotationUtils.findAnnotation(eventType, BoclipsEvent.class);
+        return boclipsEvent == null || !boclipsEvent.chunkable() ? "" : boclipsEvent.elements();
+    }
+
+    /**
+     * The paths to the large properties that are left out of claim-checked messages, or an empty list when the event
+     * does not declare any.
+     */
+    public List<String> getLargeProperties(Class<?> eventType) {
+        BoclipsEvent boclipsEvent = AnnotationUtils.findAnnotation(eventType, BoclipsEvent.class);
+        return boclipsEvent == null ? Collections.emptyList() : Arrays.asList(boclipsEvent.largeProperties());
+    }
+
+    public int getSchemaVersion(Class<?> eventType) {
+        BoclipsEvent boclipsEvent = AnnotationUtils.findAnnotation(eventType, BoclipsEvent.class);
+        return boclipsEvent == null ? 1 : boclipsEvent.schemaVersion();
+    }
+
     public List<ListenerMethodInfo> getListenerMethods(Object object) {
         List<ListenerMethodInfo> methods = new ArrayList<>();
         Class<?> targetClass = AopUtils.isAopProxy(object) ? AopUtils.getTargetClass(object) : object.getClass();
@@ -31,23 +104,53 @@ public class EventConfigurationExtractor {
         for (Method method : uniqueDeclaredMethods) {
             BoclipsEventListener boclipsEventListener = AnnotatedElementUtils.findMergedAnnotation(method, BoclipsEventListener.class);
             if (boclipsEventListener != null && !method.isBridge()) {
-                Class<?> eventType = method.getParameterTypes()[0];
+                boolean batch = List.class.equals(method.getParameterTypes()[0]);
+                Class<?> eventType = batch ? listElementType(method) : method.getParameterTypes()[0];
 
                 methods.add(ListenerMethodInfo.builder()
                         .method(method)
                         .eventType(eventType)
                         .eventName(getEventName(eventType))
+                        .batch(batch)
+                        .subtypes(subtypes(method, boclipsEventListener, eventType))
                         .build());
             }
         }
         return methods;
     }
 
+    private Set<String> subtypes(Method method, BoclipsEventListener boclipsEventListener, Class<?> eventType) {
+        Set<String> subtypes = new HashSet<>(Arrays.asList(boclipsEventListener.subtypes()));
+        if (!subtypes.isEmpty() && getSubtypePath(eventType).isEmpty()) {
+            throw new InvalidMessagingConfiguration("Listener " + method + " filters on subtypes, but " + eventType.getSimpleName() + " declares no subtype");
+        }
+        return subtypes;
+    }
+
+    private static Class<?> listElementType(Method method) {
+        Type parameterType = method.getGenericParameterTypes()[0];
+        if (parameterType instanceof ParameterizedType) {
+            Type elementType = ((ParameterizedType) parameterType).getActualTypeArguments()[0];
+            if (elementType instanceof Class) {
+                return (Class<?>) elementType;
+            }
+        }
+        throw new InvalidMessagingConfiguration("Batch listener " + method + " must take a List of a concrete event type");
+    }
+
     @Data
     @Builder
     public static class ListenerMethodInfo {
         private final String eventName;
         private final Method method;
         private final Class<?> eventType;
+        /**
+         * Whether the method takes a {@code List} of events rather than a single one.
+         */
+        private final boolean batch;
+        /**
+         * The only subtypes the listener receives, or all when empty.
+         */
+        private final Set<String> subtypes;
     }
 }
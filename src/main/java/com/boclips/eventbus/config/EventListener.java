@@ -1,24 +1,37 @@
 package com.boclips.eventbus.config;
 
-import java.lang.reflect.InvocationTargetException;
+import com.boclips.eventbus.EventHandlingException;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Set;
 
 public class EventListener {
 
-    private final Object object;
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, Object.class);
+
     private final EventConfigurationExtractor.ListenerMethodInfo method;
+    private final MethodHandle invoker;
 
     public EventListener(Object object, EventConfigurationExtractor.ListenerMethodInfo method) {
-        this.object = object;
         this.method = method;
+        this.invoker = invokerFor(object, method.getMethod());
     }
 
+    /**
+     * Calls the listener method with an event, or a list of events for batch listeners, letting anything it throws reach the event bus. Checked exceptions are wrapped in
+     * an {@link EventHandlingException}.
+     */
     public void receive(Object message) {
         try {
-            method.getMethod().invoke(object, message);
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
-        } catch (InvocationTargetException e) {
-            e.printStackTrace();
+            invoker.invokeExact(message);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new EventHandlingException("Listener " + method.getMethod() + " failed handling " + method.getEventName(), e);
         }
     }
 
@@ -26,4 +39,23 @@ public class EventListener {
         return method.getEventType();
     }
 
+    public boolean isBatch() {
+        return method.isBatch();
+    }
+
+    public Set<String> getSubtypes() {
+        return method.getSubtypes();
+    }
+
+    private static MethodHandle invokerFor(Object object, Method method) {
+        try {
+            ReflectionUtils.makeAccessible(method);
+            return MethodHandles.lookup()
+                    .unreflect(method)
+                    .bindTo(object)
+                    .asType(INVOKER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new InvalidMessagingConfiguration("Cannot access listener method " + method + ": " + e.getMessage());
+        }
+    }
 }
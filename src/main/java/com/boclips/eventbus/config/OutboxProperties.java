@@ -0,0 +1,51 @@
+package com.boclips.eventbus.config;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * The local outbox, bound from {@code pubsub.outbox.*}. With a directory set, publishing appends events to a durable
+ * log there and returns, and a background relay drains the log to Pub/Sub.
+ */
+@Data
+public class OutboxProperties {
+    /**
+     * Directory of the outbox log. Events are published straight to Pub/Sub when not set.
+     */
+    private String directory;
+
+    /**
+     * Size of the memory-mapped segment files the log is made of. Segments are deleted once relayed.
+     */
+    private int segmentBytes = 64 * 1024 * 1024;
+
+    /**
+     * Forces every appended event to disk before publishing returns, so that events also survive the machine
+     * crashing rather than only the JVM, at the cost of publish latency.
+     */
+    private boolean syncOnAppend = false;
+
+    /**
+     * Events relayed at a time. The position in the log only moves on once the whole batch has been acknowledged, so
+     * after a failure or crash up to a batch of events is published again.
+     */
+    private int relayBatchSize = 1000;
+
+    /**
+     * How long the relay waits before looking at an empty log again, and the first delay before retrying a failed
+     * batch, doubled on every consecutive failure.
+     */
+    private Duration relayInterval = Duration.ofMillis(100);
+
+    /**
+     * How long the relay waits for a batch to be acknowledged before publishing it again.
+     */
+    private Duration publishTimeout = Duration.ofMinutes(1);
+
+    /**
+     * Attempts at relaying an event that Pub/Sub rejects for a reason retrying cannot fix, like a message over the
+     * size limit, before it is parked in the {@code parked} directory of the outbox and relaying moves on past it.
+     */
+    private int maxRelayAttempts = 10;
+}
@@ -0,0 +1,34 @@
+package com.boclips.eventbus.config;
+
+/**
+ * How published events are encoded, named after the {@code contentType} message attribute they are sent with.
+ */
+public enum PayloadFormat {
+    JSON("application/json"),
+    SMILE("application/x-jackson-smile");
+
+    private final String contentType;
+
+    PayloadFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * The format of a received message, taking messages without a content type to be JSON.
+     */
+    public static PayloadFormat forContentType(String contentType) {
+        if (contentType == null) {
+            return JSON;
+        }
+        for (PayloadFormat format : values()) {
+            if (format.contentType.equals(contentType)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown content type " + contentType);
+    }
+}
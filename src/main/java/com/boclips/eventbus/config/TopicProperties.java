@@ -0,0 +1,261 @@
+package com.boclips.eventbus.config;
+
+import com.google.api.gax.batching.FlowController.LimitExceededBehavior;
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tuning for a single topic, bound from {@code pubsub.topics.<event-name>.*} with anything left unset falling back
+ * to {@code pubsub.defaults.*}.
+ */
+@Data
+public class TopicProperties {
+    /**
+     * Threads handling messages in the subscription's own executor, one by default so that a listener never runs
+     * concurrently with itself unless asked to. When set on the defaults, it also sizes the executor shared by
+     * subscriptions that turn {@link #dedicatedExecutor} off.
+     */
+    private Integer executorThreadCount;
+
+    /**
+     * Number of streaming pull connections opened by the subscriber.
+     */
+    private Integer parallelPullCount;
+
+    /**
+     * Gives the subscription its own executor, so that a slow topic cannot hold up others. Turning it off moves the
+     * subscription onto an executor shared with the other subscriptions that turn it off.
+     */
+    private Boolean dedicatedExecutor;
+
+    /**
+     * Messages the subscriber holds in memory before it stops pulling more.
+     */
+    private Long maxOutstandingElementCount;
+
+    /**
+     * Bytes of messages the subscriber holds in memory before it stops pulling more.
+     */
+    private Long maxOutstandingRequestBytes;
+
+    /**
+     * Messages published but not yet sent to Pub/Sub before {@link #publisherLimitExceededBehavior} applies.
+     * Unlimited when not set.
+     */
+    private Long publisherMaxOutstandingElementCount;
+
+    /**
+     * Bytes published but not yet sent to Pub/Sub before {@link #publisherLimitExceededBehavior} applies.
+     * Unlimited when not set.
+     */
+    private Long publisherMaxOutstandingRequestBytes;
+
+    /**
+     * What publishing does once the publisher limits are reached: {@code Block} the caller,
+     * {@code ThrowException}, or {@code Ignore} the limits.
+     */
+    private LimitExceededBehavior publisherLimitExceededBehavior;
+
+    /**
+     * A batch is sent once it holds this many messages...
+     */
+    private Long batchElementCountThreshold;
+
+    /**
+     * ...or this many bytes...
+     */
+    private Long batchRequestByteThreshold;
+
+    /**
+     * ...or its first message has waited this long.
+     */
+    private Duration batchDelayThreshold;
+
+    /**
+     * Most events handed to a batch listener at once. Subscriber flow control is raised to at least this many
+     * outstanding messages so that a batch can fill up.
+     */
+    private Integer listenerBatchSize;
+
+    /**
+     * Longest a batch listener waits for its batch to fill up.
+     */
+    private Duration listenerBatchWindow;
+
+    /**
+     * Times a failed handler is retried in-process before its message is nack'ed.
+     */
+    private Integer handlerRetries;
+
+    /**
+     * Wait before the first in-process retry, doubling for every further retry.
+     */
+    private Duration handlerRetryDelay;
+
+    /**
+     * Shortest wait before Pub/Sub redelivers a nack'ed message...
+     */
+    private Duration minimumRedeliveryBackoff;
+
+    /**
+     * ...growing exponentially up to this. Existing subscriptions keep their retry policy, or lack of one, unless
+     * either backoff is set; Pub/Sub's own default fills in the other.
+     */
+    private Duration maximumRedeliveryBackoff;
+
+    /**
+     * Deliveries of a message (between 5 and 100) before Pub/Sub moves it to the subscription's dead-letter topic.
+     * When not set, the subscription keeps whatever dead-letter policy it already has, if any.
+     */
+    private Integer maxDeliveryAttempts;
+
+    /**
+     * Dead-lettered messages pulled and re-driven through the listener at once when replaying.
+     */
+    private Integer replayBatchSize;
+
+    /**
+     * Most events of the topic handled at the same time. Unlimited beyond the executor's threads when not set. Events
+     * waiting for an in-process retry do not count towards it.
+     */
+    private Integer handlerConcurrency;
+
+    /**
+     * Handles events with the same {@code entityId} one after the other, in the order they were received, while
+     * events for different entities are handled in parallel, up to {@link #handlerConcurrency} (or
+     * {@link #executorThreadCount} when not set) at a time.
+     */
+    private Boolean orderedByEntityId;
+
+    /**
+     * Publishes events with their {@code entityId} as ordering key, and creates the subscription with message
+     * ordering, so that Pub/Sub delivers the events of one entity in the order they were published. Only takes effect
+     * for subscriptions created after it is enabled.
+     */
+    private Boolean messageOrdering;
+
+    /**
+     * Allowed values by message attribute, e.g. {@code schemaVersion: [2]}. Other messages are skipped before being
+     * decoded, and new subscriptions are created with the equivalent Pub/Sub filter so that they never receive them.
+     */
+    private Map<String, List<String>> attributeFilter;
+
+    /**
+     * Compression applied to published payloads of at least {@link #compressionThreshold} bytes. Consumers
+     * decompress transparently, whatever their own setting.
+     */
+    private Compression compression;
+
+    private Long compressionThreshold;
+
+    /**
+     * Encoding of published events. Consumers decode every format, whatever their own setting, so producers can
+     * switch once all consumers run a version supporting the format.
+     */
+    private PayloadFormat payloadFormat;
+
+    /**
+     * Splits published {@link com.boclips.eventbus.BoclipsEvent#chunkable()} events that encode to more than this many
+     * bytes into several events, each with a slice of the elements and within the budget. Off when not set. Consumers
+     * reassembling chunks need it too, to make room for a whole event's chunks in {@link #maxOutstandingRequestBytes}.
+     */
+    private Long maxChunkBytes;
+
+    /**
+     * Joins the chunks of a split event back into one event before handling it. Chunks are held unacknowledged
+     * until all have arrived, or handled one by one once {@link #chunkReassemblyTimeout} has passed since the first.
+     */
+    private Boolean reassembleChunks;
+
+    private Duration chunkReassemblyTimeout;
+
+    /**
+     * Chunks of one event that can be held at once while reassembling. The subscription's flow control is raised to
+     * let this many chunks of {@link #maxChunkBytes} be outstanding; the chunks of bigger events are handled one by
+     * one once {@link #chunkReassemblyTimeout} has passed.
+     */
+    private Integer maxReassembledChunks;
+
+    /**
+     * Puts published events that declare {@link com.boclips.eventbus.BoclipsEvent#largeProperties()} and encode to at
+     * least this many bytes in the {@link com.boclips.eventbus.BlobStore}, and publishes them without their large
+     * properties. Off when not set.
+     */
+    private Long claimCheckThreshold;
+
+    /**
+     * Fetches the whole event from the {@link com.boclips.eventbus.BlobStore} before handling a claim-checked message.
+     * Consumers that do not read the large properties can turn it off to get the event without them.
+     */
+    private Boolean resolveClaimChecks;
+
+    static TopicProperties defaults() {
+        TopicProperties defaults = new TopicProperties();
+        defaults.setExecutorThreadCount(1);
+        defaults.setParallelPullCount(1);
+        defaults.setDedicatedExecutor(true);
+        defaults.setMaxOutstandingElementCount(10L);
+        defaults.setMaxOutstandingRequestBytes(1024L * 1024L); // 1MB
+        defaults.setPublisherLimitExceededBehavior(LimitExceededBehavior.Ignore);
+        defaults.setBatchElementCountThreshold(200L);
+        defaults.setBatchRequestByteThreshold(10000L);
+        defaults.setBatchDelayThreshold(Duration.ofSeconds(1));
+        defaults.setListenerBatchSize(100);
+        defaults.setListenerBatchWindow(Duration.ofSeconds(1));
+        defaults.setHandlerRetries(2);
+        defaults.setHandlerRetryDelay(Duration.ofMillis(100));
+        defaults.setReplayBatchSize(100);
+        defaults.setOrderedByEntityId(false);
+        defaults.setMessageOrdering(false);
+        defaults.setAttributeFilter(Collections.emptyMap());
+        defaults.setCompression(Compression.NONE);
+        defaults.setCompressionThreshold(16L * 1024L); // 16KB
+        defaults.setPayloadFormat(PayloadFormat.JSON);
+        defaults.setReassembleChunks(false);
+        defaults.setChunkReassemblyTimeout(Duration.ofMinutes(1));
+        defaults.setMaxReassembledChunks(10);
+        defaults.setResolveClaimChecks(true);
+        return defaults;
+    }
+
+    TopicProperties withFallback(TopicProperties fallback) {
+        TopicProperties merged = new TopicProperties();
+        merged.setExecutorThreadCount(executorThreadCount != null ? executorThreadCount : fallback.getExecutorThreadCount());
+        merged.setParallelPullCount(parallelPullCount != null ? parallelPullCount : fallback.getParallelPullCount());
+        merged.setDedicatedExecutor(dedicatedExecutor != null ? dedicatedExecutor : fallback.getDedicatedExecutor());
+        merged.setMaxOutstandingElementCount(maxOutstandingElementCount != null ? maxOutstandingElementCount : fallback.getMaxOutstandingElementCount());
+        merged.setMaxOutstandingRequestBytes(maxOutstandingRequestBytes != null ? maxOutstandingRequestBytes : fallback.getMaxOutstandingRequestBytes());
+        merged.setPublisherMaxOutstandingElementCount(publisherMaxOutstandingElementCount != null ? publisherMaxOutstandingElementCount : fallback.getPublisherMaxOutstandingElementCount());
+        merged.setPublisherMaxOutstandingRequestBytes(publisherMaxOutstandingRequestBytes != null ? publisherMaxOutstandingRequestBytes : fallback.getPublisherMaxOutstandingRequestBytes());
+        merged.setPublisherLimitExceededBehavior(publisherLimitExceededBehavior != null ? publisherLimitExceededBehavior : fallback.getPublisherLimitExceededBehavior());
+        merged.setBatchElementCountThreshold(batchElementCountThreshold != null ? batchElementCountThreshold : fallback.getBatchElementCountThreshold());
+        merged.setBatchRequestByteThreshold(batchRequestByteThreshold != null ? batchRequestByteThreshold : fallback.getBatchRequestByteThreshold());
+        merged.setBatchDelayThreshold(batchDelayThreshold != null ? batchDelayThreshold : fallback.getBatchDelayThreshold());
+        merged.setListenerBatchSize(listenerBatchSize != null ? listenerBatchSize : fallback.getListenerBatchSize());
+        merged.setListenerBatchWindow(listenerBatchWindow != null ? listenerBatchWindow : fallback.getListenerBatchWindow());
+        merged.setHandlerRetries(handlerRetries != null ? handlerRetries : fallback.getHandlerRetries());
+        merged.setHandlerRetryDelay(handlerRetryDelay != null ? handlerRetryDelay : fallback.getHandlerRetryDelay());
+        merged.setMinimumRedeliveryBackoff(minimumRedeliveryBackoff != null ? minimumRedeliveryBackoff : fallback.getMinimumRedeliveryBackoff());
+        merged.setMaximumRedeliveryBackoff(maximumRedeliveryBackoff != null ? maximumRedeliveryBackoff : fallback.getMaximumRedeliveryBackoff());
+        merged.setMaxDeliveryAttempts(maxDeliveryAttempts != null ? maxDeliveryAttempts : fallback.getMaxDeliveryAttempts());
+        merged.setReplayBatchSize(replayBatchSize != null ? replayBatchSize : fallback.getReplayBatchSize());
+        merged.setHandlerConcurrency(handlerConcurrency != null ? handlerConcurrency : fallback.getHandlerConcurrency());
+        merged.setOrderedByEntityId(orderedByEntityId != null ? orderedByEntityId : fallback.getOrderedByEntityId());
+        merged.setMessageOrdering(messageOrdering != null ? messageOrdering : fallback.getMessageOrdering());
+        merged.setAttributeFilter(attributeFilter != null ? attributeFilter : fallback.getAttributeFilter());
+        merged.setCompression(compression != null ? compression : fallback.getCompression());
+        merged.setCompressionThreshold(compressionThreshold != null ? compressionThreshold : fallback.getCompressionThreshold());
+        merged.setPayloadFormat(payloadFormat != null ? payloadFormat : fallback.getPayloadFormat());
+        merged.setMaxChunkBytes(maxChunkBytes != null ? maxChunkBytes : fallback.getMaxChunkBytes());
+        merged.setReassembleChunks(reassembleChunks != null ? reassembleChunks : fallback.getReassembleChunks());
+        merged.setChunkReassemblyTimeout(chunkReassemblyTimeout != null ? chunkReassemblyTimeout : fallback.getChunkReassemblyTimeout());
+        merged.setMaxReassembledChunks(maxReassembledChunks != null ? maxReassembledChunks : fallback.getMaxReassembledChunks());
+        merged.setClaimCheckThreshold(claimCheckThreshold != null ? claimCheckThreshold : fallback.getClaimCheckThreshold());
+        merged.setResolveClaimChecks(resolveClaimChecks != null ? resolveClaimChecks : fallback.getResolveClaimChecks());
+        return merged;
+    }
+}
@@ -12,7 +12,7 @@ import lombok.experimental.SuperBuilder;
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString(callSuper = true)
-@BoclipsEvent("collection-age-range-changed")
+@BoclipsEvent(value = "collection-age-range-changed", entityId = "collectionId")
 public class CollectionAgeRangeChanged extends AbstractCollectionEvent {
 
     @NonNull
@@ -12,7 +12,7 @@ import lombok.experimental.SuperBuilder;
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString(callSuper = true)
-@BoclipsEvent("collection-bookmark-changed")
+@BoclipsEvent(value = "collection-bookmark-changed", entityId = "collectionId")
 public class CollectionBookmarkChanged extends AbstractCollectionEvent {
 
     @NonNull
@@ -8,7 +8,7 @@ import lombok.*;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@BoclipsEvent("collection-created")
+@BoclipsEvent(value = "collection-created", entityId = "collection.id.value")
 public class CollectionCreated {
 
     @NonNull
@@ -11,7 +11,7 @@ import lombok.experimental.SuperBuilder;
 @SuperBuilder
 @NoArgsConstructor
 @ToString(callSuper = true)
-@BoclipsEvent("collection-deleted")
+@BoclipsEvent(value = "collection-deleted", entityId = "collectionId")
 public class CollectionDeleted extends AbstractCollectionEvent {
 
 }
@@ -12,7 +12,7 @@ import lombok.experimental.SuperBuilder;
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString(callSuper = true)
-@BoclipsEvent("collection-description-changed")
+@BoclipsEvent(value = "collection-description-changed", entityId = "collectionId")
 public class CollectionDescriptionChanged extends AbstractCollectionEvent {
     @NonNull
     private String description;
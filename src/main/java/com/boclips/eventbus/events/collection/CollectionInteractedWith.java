@@ -10,7 +10,7 @@ import lombok.experimental.SuperBuilder;
 @SuperBuilder
 @NoArgsConstructor
 @AllArgsConstructor
-@BoclipsEvent("collection-interacted-with")
+@BoclipsEvent(value = "collection-interacted-with", subtype = "subtype")
 public class CollectionInteractedWith extends AbstractEventWithUserId {
 
     @NonNull
@@ -12,7 +12,7 @@ import lombok.experimental.SuperBuilder;
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString(callSuper = true)
-@BoclipsEvent("collection-renamed")
+@BoclipsEvent(value = "collection-renamed", entityId = "collectionId")
 public class CollectionRenamed extends AbstractCollectionEvent {
 
     @NonNull
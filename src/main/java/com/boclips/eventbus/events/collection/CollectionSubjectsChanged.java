@@ -14,7 +14,7 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString(callSuper = true)
-@BoclipsEvent("collection-subjects-changed")
+@BoclipsEvent(value = "collection-subjects-changed", entityId = "collectionId")
 public class CollectionSubjectsChanged extends AbstractCollectionEvent {
 
     @NonNull
@@ -8,7 +8,7 @@ import lombok.*;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@BoclipsEvent("collection-updated")
+@BoclipsEvent(value = "collection-updated", entityId = "collection.id.value")
 public class CollectionUpdated {
 
     @NonNull
@@ -14,7 +14,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString(callSuper = true)
-@BoclipsEvent("collection-videos-bulk-changed")
+@BoclipsEvent(value = "collection-videos-bulk-changed", entityId = "collectionId", elements = "videoIds")
 public class CollectionVideosBulkChanged extends AbstractCollectionEvent {
     @NonNull
     private List<String> videoIds;
@@ -12,7 +12,7 @@ import lombok.experimental.SuperBuilder;
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString(callSuper = true)
-@BoclipsEvent("collection-visibility-changed")
+@BoclipsEvent(value = "collection-visibility-changed", entityId = "collectionId")
 public class CollectionVisibilityChanged extends AbstractCollectionEvent {
 
     @NonNull
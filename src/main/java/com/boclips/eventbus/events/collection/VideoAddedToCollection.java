@@ -12,7 +12,7 @@ import lombok.experimental.SuperBuilder;
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString(callSuper = true)
-@BoclipsEvent("video-added-to-collection")
+@BoclipsEvent(value = "video-added-to-collection", entityId = "collectionId")
 public class VideoAddedToCollection extends AbstractCollectionEvent {
 
     @NonNull
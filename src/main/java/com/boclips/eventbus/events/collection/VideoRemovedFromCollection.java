@@ -12,7 +12,7 @@ import lombok.experimental.SuperBuilder;
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString(callSuper = true)
-@BoclipsEvent("video-removed-from-collection")
+@BoclipsEvent(value = "video-removed-from-collection", entityId = "collectionId")
 public class VideoRemovedFromCollection extends AbstractCollectionEvent {
 
     @NonNull
@@ -13,7 +13,7 @@ import lombok.experimental.SuperBuilder;
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString(callSuper = true)
-@BoclipsEvent("contract-updated")
+@BoclipsEvent(value = "contract-updated", entityId = "contract.contractId.value")
 public class ContractUpdated extends AbstractEvent {
     @NonNull
     private Contract contract;
@@ -10,7 +10,7 @@ import lombok.experimental.SuperBuilder;
 @SuperBuilder
 @NoArgsConstructor
 @AllArgsConstructor
-@BoclipsEvent("order-created")
+@BoclipsEvent(value = "order-created", entityId = "order.id")
 public class OrderCreated extends AbstractEvent {
 
     @NonNull
@@ -10,7 +10,7 @@ import lombok.experimental.SuperBuilder;
 @SuperBuilder
 @NoArgsConstructor
 @AllArgsConstructor
-@BoclipsEvent("order-updated")
+@BoclipsEvent(value = "order-updated", entityId = "order.id")
 public class OrderUpdated extends AbstractEvent {
 
     @NonNull
@@ -11,7 +11,7 @@ import lombok.experimental.SuperBuilder;
 @SuperBuilder
 @ToString(callSuper = true)
 @NoArgsConstructor
-@BoclipsEvent("platform-interacted-with")
+@BoclipsEvent(value = "platform-interacted-with", subtype = "subtype")
 public class PlatformInteractedWith extends AbstractEvent {
 
   @NonNull
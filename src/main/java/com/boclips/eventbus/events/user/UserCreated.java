@@ -11,6 +11,6 @@ import lombok.experimental.SuperBuilder;
 @SuperBuilder
 @ToString(callSuper = true)
 @NoArgsConstructor
-@BoclipsEvent("user-created")
+@BoclipsEvent(value = "user-created", entityId = "user.id")
 public class UserCreated extends AbstractEventWithUser {
 }
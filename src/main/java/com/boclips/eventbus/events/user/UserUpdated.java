@@ -11,6 +11,6 @@ import lombok.experimental.SuperBuilder;
 @SuperBuilder
 @ToString(callSuper = true)
 @NoArgsConstructor
-@BoclipsEvent("user-updated")
+@BoclipsEvent(value = "user-updated", entityId = "user.id")
 public class UserUpdated extends AbstractEventWithUser {
 }
@@ -13,7 +13,7 @@ import java.util.Locale;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@BoclipsEvent("video-analysed")
+@BoclipsEvent(value = "video-analysed", largeProperties = {"transcript", "captions.content"})
 public class VideoAnalysed {
 
     @NonNull
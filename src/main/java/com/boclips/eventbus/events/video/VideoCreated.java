@@ -8,7 +8,7 @@ import lombok.*;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@BoclipsEvent("video-created")
+@BoclipsEvent(value = "video-created", entityId = "video.id.value")
 public class VideoCreated {
 
     @NonNull
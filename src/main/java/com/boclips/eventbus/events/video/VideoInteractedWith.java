@@ -13,7 +13,7 @@ import java.util.Map;
 @SuperBuilder
 @NoArgsConstructor
 @AllArgsConstructor
-@BoclipsEvent("video-interacted-with")
+@BoclipsEvent(value = "video-interacted-with", subtype = "subtype")
 public class VideoInteractedWith extends AbstractEventWithUserId {
 
     @NonNull
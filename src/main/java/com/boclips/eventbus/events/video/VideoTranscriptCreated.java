@@ -7,7 +7,7 @@ import lombok.*;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@BoclipsEvent("video-transcript-created")
+@BoclipsEvent(value = "video-transcript-created", largeProperties = "transcript")
 public class VideoTranscriptCreated {
 
     @NonNull
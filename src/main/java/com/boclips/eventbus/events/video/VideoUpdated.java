@@ -8,7 +8,7 @@ import lombok.*;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@BoclipsEvent("video-updated")
+@BoclipsEvent(value = "video-updated", entityId = "video.id.value")
 public class VideoUpdated {
 
     @NonNull
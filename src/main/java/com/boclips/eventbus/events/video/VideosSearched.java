@@ -12,7 +12,7 @@ import java.util.List;
 @SuperBuilder
 @NoArgsConstructor
 @AllArgsConstructor
-@BoclipsEvent("videos-searched")
+@BoclipsEvent(value = "videos-searched", elements = "pageVideoIds")
 public class VideosSearched extends AbstractSearchEventWithUserId {
 
     @NonNull
@@ -10,7 +10,7 @@ import java.util.List;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@BoclipsEvent("videos-updated")
+@BoclipsEvent(value = "videos-updated", elements = "videos", chunkable = true)
 public class VideosUpdated {
     @NonNull
     private List<Video> videos;
@@ -1,25 +1,59 @@
 package com.boclips.eventbus.infrastructure;
 
+import com.boclips.eventbus.BatchEventHandler;
+import com.boclips.eventbus.EventElementsHandler;
 import com.boclips.eventbus.EventBus;
 import com.boclips.eventbus.EventHandler;
 import com.boclips.eventbus.config.EventConfigurationExtractor;
+import com.boclips.eventbus.config.InvalidMessagingConfiguration;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
+import static java.util.Collections.emptySet;
 import static java.util.Collections.singletonList;
 
 public abstract class AbstractEventBus implements EventBus {
 
     private final EventConfigurationExtractor eventConfigurationExtractor = new EventConfigurationExtractor();
 
-    protected abstract <T> void doSubscribe(String topicName, Class<T> eventType, EventHandler<? super T> eventHandler);
+    protected abstract <T> void doSubscribe(String topicName, Class<T> eventType, Set<String> subtypes, EventHandler<? super T> eventHandler);
+    protected abstract <T> void doSubscribeBatch(String topicName, Class<T> eventType, Set<String> subtypes, BatchEventHandler<T> batchEventHandler);
+    protected abstract <E> void doSubscribeElements(String topicName, Class<?> eventType, String property, Class<E> elementType, EventElementsHandler<E> eventElementsHandler);
     protected abstract void doUnsubscribe(String topicName);
-    protected abstract void doPublish(Iterable<?> events, String topicName);
+    protected abstract int doReplayDeadLetters(String topicName, int maxEvents);
+    protected abstract CompletableFuture<List<String>> doPublish(Iterable<?> events, String topicName);
 
     @Override
     public final <T> void subscribe(Class<T> eventType, EventHandler<? super T> eventHandler) {
-        doSubscribe(topicName(eventType), eventType, eventHandler);
+        subscribe(eventType, emptySet(), eventHandler);
+    }
+
+    @Override
+    public final <T> void subscribe(Class<T> eventType, Set<String> subtypes, EventHandler<? super T> eventHandler) {
+        doSubscribe(topicName(eventType), eventType, validSubtypes(eventType, subtypes), eventHandler);
+    }
+
+    @Override
+    public final <T> void subscribeBatch(Class<T> eventType, BatchEventHandler<T> batchEventHandler) {
+        subscribeBatch(eventType, emptySet(), batchEventHandler);
+    }
+
+    @Override
+    public final <T> void subscribeBatch(Class<T> eventType, Set<String> subtypes, BatchEventHandler<T> batchEventHandler) {
+        doSubscribeBatch(topicName(eventType), eventType, validSubtypes(eventType, subtypes), batchEventHandler);
+    }
+
+    @Override
+    public final <T, E> void subscribeElements(Class<T> eventType, Class<E> elementType, EventElementsHandler<E> eventElementsHandler) {
+        Class<?> declaredElementType = eventConfigurationExtractor.getElementType(eventType);
+        if (!elementType.isAssignableFrom(declaredElementType)) {
+            throw new InvalidMessagingConfiguration("Elements of " + eventType.getSimpleName() + " are " + declaredElementType.getSimpleName() + ", not " + elementType.getSimpleName());
+        }
+        doSubscribeElements(topicName(eventType), eventType, eventConfigurationExtractor.getElementsProperty(eventType), elementType, eventElementsHandler);
     }
 
     @Override
@@ -27,6 +61,11 @@ public abstract class AbstractEventBus implements EventBus {
         doUnsubscribe(topicName(eventType));
     }
 
+    @Override
+    public final <T> int replayDeadLetters(Class<T> eventType, int maxEvents) {
+        return doReplayDeadLetters(topicName(eventType), maxEvents);
+    }
+
     @Override
     public final <T> void publish(Iterable<T> events) {
         doPublish(events, topicName(singleClass(events)));
@@ -37,6 +76,28 @@ public abstract class AbstractEventBus implements EventBus {
         doPublish(singletonList(event), topicName(event.getClass()));
     }
 
+    @Override
+    public final <T> CompletableFuture<List<String>> publishAsync(Iterable<T> events) {
+        return doPublish(events, topicName(singleClass(events)));
+    }
+
+    @Override
+    public final <T> CompletableFuture<String> publishAsync(T event) {
+        return doPublish(singletonList(event), topicName(event.getClass()))
+                .thenApply(messageIds -> messageIds.get(0));
+    }
+
+    protected static CompletableFuture<List<String>> allMessageIds(List<CompletableFuture<String>> messageIds) {
+        return CompletableFuture.allOf(messageIds.toArray(new CompletableFuture[0]))
+                .thenApply(done -> {
+                    List<String> ids = new ArrayList<>(messageIds.size());
+                    for (CompletableFuture<String> messageId : messageIds) {
+                        ids.add(messageId.join());
+                    }
+                    return ids;
+                });
+    }
+
     private Class<?> singleClass(Iterable<?> events) {
         Set<Class<?>> classes = new HashSet<>();
         for (Object event : events) {
@@ -52,6 +113,13 @@ public abstract class AbstractEventBus implements EventBus {
         }
     }
 
+    private Set<String> validSubtypes(Class<?> eventType, Set<String> subtypes) {
+        if (!subtypes.isEmpty() && eventConfigurationExtractor.getSubtypePath(eventType).isEmpty()) {
+            throw new InvalidMessagingConfiguration(eventType.getSimpleName() + " declares no subtype to subscribe to " + subtypes + " by");
+        }
+        return subtypes;
+    }
+
     private String topicName(Class<?> cls) {
         return eventConfigurationExtractor.getEventName(cls);
     }
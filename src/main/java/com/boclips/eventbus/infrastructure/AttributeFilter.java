@@ -0,0 +1,90 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.config.InvalidMessagingConfiguration;
+import com.google.cloud.pubsub.v1.AckReplyConsumer;
+import com.google.cloud.pubsub.v1.MessageReceiver;
+import com.google.pubsub.v1.PubsubMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Accepts messages whose attributes have one of the allowed values, for every filtered attribute. Messages without
+ * a filtered attribute, e.g. from producers predating it, are accepted so that they are not lost. The same rule is
+ * rendered as a Pub/Sub subscription filter, so that new subscriptions never receive rejected messages at all, unless
+ * it is too long for Pub/Sub to accept.
+ */
+class AttributeFilter {
+    static final int MAX_SUBSCRIPTION_FILTER_BYTES = 256;
+    private static final Pattern ATTRIBUTE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    private final Logger logger = Logger.getLogger(AttributeFilter.class.getName());
+    private final Map<String, List<String>> allowedValuesByAttribute;
+
+    AttributeFilter(Map<String, List<String>> allowedValuesByAttribute) {
+        allowedValuesByAttribute.keySet().forEach(attribute -> {
+            if (!ATTRIBUTE_NAME.matcher(attribute).matches()) {
+                throw new InvalidMessagingConfiguration("Cannot filter on attribute " + attribute + ", only letters, digits and underscores are supported");
+            }
+        });
+        this.allowedValuesByAttribute = new TreeMap<>(allowedValuesByAttribute);
+    }
+
+    boolean isEmpty() {
+        return allowedValuesByAttribute.isEmpty();
+    }
+
+    boolean accepts(Map<String, String> attributes) {
+        for (Map.Entry<String, List<String>> allowed : allowedValuesByAttribute.entrySet()) {
+            String value = attributes.get(allowed.getKey());
+            if (value != null && !allowed.getValue().contains(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The filter in Pub/Sub's filter syntax, or an empty string (no filter) when nothing is filtered or the filter is
+     * longer than Pub/Sub allows. Rejected messages are then only skipped on receipt, see {@link #applyTo}.
+     */
+    String toSubscriptionFilter() {
+        String filter = allowedValuesByAttribute.entrySet().stream()
+                .map(allowed -> "(NOT attributes:" + allowed.getKey() + allowed.getValue().stream()
+                        .map(value -> " OR attributes." + allowed.getKey() + " = " + quote(value))
+                        .collect(Collectors.joining()) + ")")
+                .collect(Collectors.joining(" AND "));
+        int bytes = filter.getBytes(StandardCharsets.UTF_8).length;
+        if (bytes > MAX_SUBSCRIPTION_FILTER_BYTES) {
+            logger.warning(() -> "Subscription filter of " + bytes + " bytes exceeds Pub/Sub's limit of " + MAX_SUBSCRIPTION_FILTER_BYTES + ", filtering on receipt only: " + filter);
+            return "";
+        }
+        return filter;
+    }
+
+    /**
+     * Acks messages this filter rejects without decoding them, and hands all others to the receiver.
+     */
+    MessageReceiver applyTo(MessageReceiver receiver) {
+        if (isEmpty()) {
+            return receiver;
+        }
+        return (PubsubMessage message, AckReplyConsumer consumer) -> {
+            if (accepts(message.getAttributesMap())) {
+                receiver.receiveMessage(message, consumer);
+            } else {
+                logger.fine(() -> "Skipping message " + message.getMessageId() + " with attributes " + message.getAttributesMap());
+                consumer.ack();
+            }
+        };
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
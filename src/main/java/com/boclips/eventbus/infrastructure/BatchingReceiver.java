@@ -0,0 +1,160 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.BatchEventHandler;
+import com.google.cloud.pubsub.v1.AckReplyConsumer;
+import com.google.cloud.pubsub.v1.MessageReceiver;
+import com.google.pubsub.v1.PubsubMessage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Accumulates received messages until the batch is full or the window since its first message has passed, then
+ * hands the batch to the handler and acks all of its messages once it succeeds. A failing batch is retried as a whole
+ * a bounded number of times with a doubling delay, like single events in {@link RetryingReceiver}, before all of its
+ * messages are nack'ed. The scheduler only times window flushes and retries, which run on the subscription's executor
+ * like batches that fill up, so that a single-threaded subscription never handles two batches at once.
+ */
+class BatchingReceiver<T> implements MessageReceiver {
+    private final Logger logger = Logger.getLogger(BatchingReceiver.class.getName());
+    private final String subscriptionName;
+    private final Class<T> eventType;
+    private final MessageCodec codec;
+    private final BatchEventHandler<T> handler;
+    private final int batchSize;
+    private final Duration window;
+    private final int retries;
+    private final Duration retryDelay;
+    private final boolean deadLettering;
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+
+    private Batch<T> pending = new Batch<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    BatchingReceiver(String subscriptionName, Class<T> eventType, MessageCodec codec, BatchEventHandler<T> handler, int batchSize, Duration window, int retries, Duration retryDelay, boolean deadLettering, Executor executor, ScheduledExecutorService scheduler) {
+        this.subscriptionName = subscriptionName;
+        this.eventType = eventType;
+        this.codec = codec;
+        this.handler = handler;
+        this.batchSize = batchSize;
+        this.window = window;
+        this.retries = retries;
+        this.retryDelay = retryDelay;
+        this.deadLettering = deadLettering;
+        this.executor = executor;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void receiveMessage(PubsubMessage message, AckReplyConsumer consumer) {
+        T payload;
+        try {
+            payload = codec.decode(eventType, message);
+        } catch (Exception e) {
+            // redelivering cannot fix an undecodable message, so only nack it when it will end up dead-lettered
+            logger.log(Level.WARNING, e, () -> "Error de-serialising message " + message.getMessageId() + " from " + subscriptionName + (deadLettering ? ", nack'ing" : ", dropping"));
+            if (deadLettering) {
+                consumer.nack();
+            } else {
+                consumer.ack();
+            }
+            return;
+        }
+
+        Batch<T> full = null;
+        synchronized (this) {
+            pending.add(payload, consumer);
+            if (pending.size() >= batchSize) {
+                full = takePending();
+            } else if (pending.size() == 1) {
+                scheduledFlush = scheduler.schedule(this::submitFlush, window.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full != null) {
+            handle(full, 0);
+        }
+    }
+
+    private void submitFlush() {
+        try {
+            executor.execute(this::flush);
+        } catch (RejectedExecutionException e) {
+            logger.fine(() -> "Not flushing batch from " + subscriptionName + " while shutting down, leaving it for redelivery");
+        }
+    }
+
+    void flush() {
+        Batch<T> batch;
+        synchronized (this) {
+            batch = takePending();
+        }
+        if (batch.size() > 0) {
+            handle(batch, 0);
+        }
+    }
+
+    private Batch<T> takePending() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        Batch<T> batch = pending;
+        pending = new Batch<>();
+        return batch;
+    }
+
+    private void handle(Batch<T> batch, int retry) {
+        try {
+            handler.handle(batch.payloads);
+        } catch (Exception e) {
+            if (retry < retries) {
+                long delay = retryDelay.toMillis() << retry;
+                logger.log(Level.FINE, e, () -> "Error handling batch of " + batch.size() + " messages from " + subscriptionName + ", retrying in " + delay + "ms");
+                try {
+                    scheduler.schedule(() -> resubmit(batch, retry + 1), delay, TimeUnit.MILLISECONDS);
+                    return;
+                } catch (RejectedExecutionException rejected) {
+                    logger.fine(() -> "Not retrying batch from " + subscriptionName + " while shutting down");
+                }
+            } else {
+                logger.log(Level.WARNING, e, () -> "Error handling batch of " + batch.size() + " messages from " + subscriptionName + ", nack'ing");
+            }
+            batch.consumers.forEach(AckReplyConsumer::nack);
+            return;
+        }
+        logger.fine(() -> "Ack'ing batch of " + batch.size() + " messages for " + subscriptionName);
+        batch.consumers.forEach(AckReplyConsumer::ack);
+    }
+
+    private void resubmit(Batch<T> batch, int retry) {
+        try {
+            executor.execute(() -> handle(batch, retry));
+        } catch (RejectedExecutionException e) {
+            logger.fine(() -> "Not retrying batch from " + subscriptionName + " while shutting down, nack'ing");
+            batch.consumers.forEach(AckReplyConsumer::nack);
+        }
+    }
+
+    private static class Batch<T> {
+        private final List<T> payloads = new ArrayList<>();
+        private final List<AckReplyConsumer> consumers = new ArrayList<>();
+
+        void add(T payload, AckReplyConsumer consumer) {
+            payloads.add(payload);
+            consumers.add(consumer);
+        }
+
+        int size() {
+            return payloads.size();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.google.cloud.pubsub.v1.AckReplyConsumer;
+import com.google.cloud.pubsub.v1.MessageReceiver;
+import com.google.pubsub.v1.PubsubMessage;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Holds the chunks of a split event until all have arrived, and then hands the receiver a single message with the
+ * whole event, whose outcome is applied to every chunk. Every chunk is a valid event with a slice of the elements, so
+ * chunks that cannot be joined, or that are still incomplete after the timeout, are handed over one by one instead.
+ * Messages that are not chunks are passed straight through. The scheduler only times the expiry; expired chunks are
+ * handed over on the subscription's executor, like the messages it receives.
+ */
+class ChunkAssembler implements MessageReceiver {
+    private final Logger logger = Logger.getLogger(ChunkAssembler.class.getName());
+    private final MessageReceiver receiver;
+    private final MessageCodec codec;
+    private final String property;
+    private final Duration timeout;
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, PendingChunks> pendingById = new ConcurrentHashMap<>();
+
+    ChunkAssembler(MessageReceiver receiver, MessageCodec codec, String property, Duration timeout, Executor executor, ScheduledExecutorService scheduler) {
+        this.receiver = receiver;
+        this.codec = codec;
+        this.property = property;
+        this.timeout = timeout;
+        this.executor = executor;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void receiveMessage(PubsubMessage message, AckReplyConsumer consumer) {
+        String chunkId = message.getAttributesOrDefault(MessageAttributes.CHUNK_ID, null);
+        if (chunkId == null) {
+            receiver.receiveMessage(message, consumer);
+            return;
+        }
+
+        int index;
+        int count;
+        try {
+            index = Integer.parseInt(message.getAttributesOrThrow(MessageAttributes.CHUNK_INDEX));
+            count = Integer.parseInt(message.getAttributesOrThrow(MessageAttributes.CHUNK_COUNT));
+        } catch (IllegalArgumentException e) {
+            logger.log(Level.WARNING, e, () -> "Invalid chunk attributes on message " + message.getMessageId() + ", passing it on as is");
+            receiver.receiveMessage(message, consumer);
+            return;
+        }
+
+        PendingChunks pending = pendingById.computeIfAbsent(chunkId, id -> new PendingChunks(id, count));
+        if (pending.add(index, message, consumer)) {
+            pendingById.remove(chunkId, pending);
+            deliver(pending);
+        }
+    }
+
+    private void deliver(PendingChunks pending) {
+        PubsubMessage whole;
+        try {
+            whole = pending.messages[0].toBuilder()
+                    .removeAttributes(MessageAttributes.CHUNK_ID)
+                    .removeAttributes(MessageAttributes.CHUNK_INDEX)
+                    .removeAttributes(MessageAttributes.CHUNK_COUNT)
+                    .setData(codec.joinChunks(Arrays.asList(pending.messages), property))
+                    .build();
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, e, () -> "Could not join chunks of " + pending.id + ", handling them one by one");
+            pending.deliverSeparately();
+            return;
+        }
+        receiver.receiveMessage(whole, pending);
+    }
+
+    private class PendingChunks implements AckReplyConsumer {
+        private final String id;
+        private final PubsubMessage[] messages;
+        private final AckReplyConsumer[] consumers;
+        private int received;
+        private boolean done;
+
+        PendingChunks(String id, int count) {
+            this.id = id;
+            this.messages = new PubsubMessage[count];
+            this.consumers = new AckReplyConsumer[count];
+            try {
+                scheduler.schedule(this::submitExpiry, timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                logger.fine(() -> "Not expiring chunks of " + id + " while shutting down");
+            }
+        }
+
+        /**
+         * Returns true once the last missing chunk has been added. A redelivered chunk replaces the earlier delivery.
+         */
+        boolean add(int index, PubsubMessage message, AckReplyConsumer consumer) {
+            synchronized (this) {
+                if (!done && index >= 0 && index < messages.length) {
+                    if (consumers[index] != null) {
+                        consumers[index].nack();
+                    } else {
+                        received++;
+                    }
+                    messages[index] = message;
+                    consumers[index] = consumer;
+                    done = received == messages.length;
+                    return done;
+                }
+            }
+            // late or out of range: the chunk is still a valid event on its own
+            receiver.receiveMessage(message, consumer);
+            return false;
+        }
+
+        void deliverSeparately() {
+            for (int i = 0; i < messages.length; i++) {
+                if (messages[i] != null) {
+                    receiver.receiveMessage(messages[i], consumers[i]);
+                }
+            }
+        }
+
+        private void submitExpiry() {
+            try {
+                executor.execute(this::expire);
+            } catch (RejectedExecutionException e) {
+                logger.fine(() -> "Not expiring chunks of " + id + " while shutting down");
+            }
+        }
+
+        private void expire() {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+            }
+            pendingById.remove(id, this);
+            logger.warning(() -> String.format("Only %d of %d chunks of %s arrived within %s, handling them one by one", received, messages.length, id, timeout));
+            deliverSeparately();
+        }
+
+        @Override
+        public synchronized void ack() {
+            for (AckReplyConsumer consumer : consumers) {
+                if (consumer != null) {
+                    consumer.ack();
+                }
+            }
+        }
+
+        @Override
+        public synchronized void nack() {
+            for (AckReplyConsumer consumer : consumers) {
+                if (consumer != null) {
+                    consumer.nack();
+                }
+            }
+        }
+    }
+}
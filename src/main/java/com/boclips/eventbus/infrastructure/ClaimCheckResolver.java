@@ -0,0 +1,53 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.BlobStore;
+import com.google.cloud.pubsub.v1.AckReplyConsumer;
+import com.google.cloud.pubsub.v1.MessageReceiver;
+import com.google.protobuf.UnsafeByteOperations;
+import com.google.pubsub.v1.PubsubMessage;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Replaces the payload of claim-checked messages with the whole event kept in the blob store, so that handlers get
+ * the event with its large properties. Messages whose event cannot be fetched are nack'ed, to be redelivered (or
+ * dead-lettered) rather than handled without them. Other messages are passed straight through.
+ */
+class ClaimCheckResolver implements MessageReceiver {
+    private final Logger logger = Logger.getLogger(ClaimCheckResolver.class.getName());
+    private final MessageReceiver receiver;
+    private final BlobStore blobStore;
+
+    ClaimCheckResolver(MessageReceiver receiver, BlobStore blobStore) {
+        this.receiver = receiver;
+        this.blobStore = blobStore;
+    }
+
+    @Override
+    public void receiveMessage(PubsubMessage message, AckReplyConsumer consumer) {
+        String key = message.getAttributesOrDefault(MessageAttributes.CLAIM_CHECK, null);
+        if (key == null) {
+            receiver.receiveMessage(message, consumer);
+            return;
+        }
+        if (blobStore == null) {
+            logger.warning(() -> "Message " + message.getMessageId() + " is claim-checked, but there is no BlobStore to resolve it from, nack'ing");
+            consumer.nack();
+            return;
+        }
+
+        PubsubMessage resolved;
+        try {
+            resolved = message.toBuilder()
+                    .setData(UnsafeByteOperations.unsafeWrap(blobStore.get(key)))
+                    .removeAttributes(MessageAttributes.CLAIM_CHECK)
+                    .build();
+        } catch (Exception e) {
+            logger.log(Level.WARNING, e, () -> "Could not fetch claim-checked event " + key + " of message " + message.getMessageId() + ", nack'ing");
+            consumer.nack();
+            return;
+        }
+        receiver.receiveMessage(resolved, consumer);
+    }
+}
@@ -0,0 +1,151 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.google.cloud.pubsub.v1.AckReplyConsumer;
+import com.google.cloud.pubsub.v1.MessageReceiver;
+import com.google.cloud.pubsub.v1.stub.GrpcSubscriberStub;
+import com.google.cloud.pubsub.v1.stub.SubscriberStub;
+import com.google.cloud.pubsub.v1.stub.SubscriberStubSettings;
+import com.google.pubsub.v1.AcknowledgeRequest;
+import com.google.pubsub.v1.ModifyAckDeadlineRequest;
+import com.google.pubsub.v1.ProjectSubscriptionName;
+import com.google.pubsub.v1.PullRequest;
+import com.google.pubsub.v1.ReceivedMessage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pulls dead-lettered messages in batches and re-drives them through the receiver of the live subscription. Handled
+ * messages are removed from the dead-letter subscription; failed ones are released straight back onto it to be tried
+ * again. A message that fails {@link #MAX_REPLAY_FAILURES} times is skipped for the rest of the replay by holding on
+ * to it for as long as Pub/Sub allows, so that it stays dead-lettered without blocking the messages behind it.
+ */
+class DeadLetterReplayer implements AutoCloseable {
+    static final int MAX_REPLAY_FAILURES = 3;
+    private static final int SKIPPED_ACK_DEADLINE_SECONDS = 600;
+
+    private final Logger logger = Logger.getLogger(DeadLetterReplayer.class.getName());
+    private volatile SubscriberStub subscriberStub;
+
+    DeadLetterReplayer() {
+    }
+
+    DeadLetterReplayer(SubscriberStub subscriberStub) {
+        this.subscriberStub = subscriberStub;
+    }
+
+    int replay(ProjectSubscriptionName deadLetterSubscription, MessageReceiver receiver, int maxMessages, int batchSize) throws IOException {
+        SubscriberStub stub = subscriberStub();
+        Map<String, Integer> failuresByMessageId = new HashMap<>();
+        int replayed = 0;
+        int skipped = 0;
+        while (replayed + skipped < maxMessages) {
+            List<ReceivedMessage> messages = stub.pullCallable().call(PullRequest.newBuilder()
+                    .setSubscription(deadLetterSubscription.toString())
+                    .setMaxMessages(Math.min(batchSize, maxMessages - replayed - skipped))
+                    .build())
+                    .getReceivedMessagesList();
+            if (messages.isEmpty()) {
+                break;
+            }
+
+            List<String> handled = new ArrayList<>();
+            List<String> failed = new ArrayList<>();
+            List<String> poisoned = new ArrayList<>();
+            for (ReceivedMessage message : redrive(messages, receiver, handled)) {
+                int failures = failuresByMessageId.merge(message.getMessage().getMessageId(), 1, Integer::sum);
+                if (failures >= MAX_REPLAY_FAILURES) {
+                    poisoned.add(message.getAckId());
+                    logger.warning(() -> "Dead-lettered message " + message.getMessage().getMessageId() + " from " + deadLetterSubscription + " failed " + failures + " times, skipping it");
+                } else {
+                    failed.add(message.getAckId());
+                }
+            }
+
+            if (!handled.isEmpty()) {
+                stub.acknowledgeCallable().call(AcknowledgeRequest.newBuilder()
+                        .setSubscription(deadLetterSubscription.toString())
+                        .addAllAckIds(handled)
+                        .build());
+                replayed += handled.size();
+            }
+            if (!failed.isEmpty()) {
+                modifyAckDeadline(stub, deadLetterSubscription, failed, 0);
+                logger.fine(() -> String.format("%d of %d replayed messages from %s failed again, releasing them", failed.size(), messages.size(), deadLetterSubscription));
+            }
+            if (!poisoned.isEmpty()) {
+                modifyAckDeadline(stub, deadLetterSubscription, poisoned, SKIPPED_ACK_DEADLINE_SECONDS);
+                skipped += poisoned.size();
+            }
+        }
+        logger.info(String.format("Replayed %d messages from %s, skipped %d that kept failing", replayed, deadLetterSubscription, skipped));
+        return replayed;
+    }
+
+    private static void modifyAckDeadline(SubscriberStub stub, ProjectSubscriptionName subscription, List<String> ackIds, int seconds) {
+        stub.modifyAckDeadlineCallable().call(ModifyAckDeadlineRequest.newBuilder()
+                .setSubscription(subscription.toString())
+                .addAllAckIds(ackIds)
+                .setAckDeadlineSeconds(seconds)
+                .build());
+    }
+
+    /**
+     * Returns the messages that failed.
+     */
+    private static List<ReceivedMessage> redrive(List<ReceivedMessage> messages, MessageReceiver receiver, List<String> handled) {
+        List<CompletableFuture<Boolean>> outcomes = new ArrayList<>(messages.size());
+        for (ReceivedMessage message : messages) {
+            CompletableFuture<Boolean> outcome = new CompletableFuture<>();
+            outcomes.add(outcome);
+            receiver.receiveMessage(message.getMessage(), new AckReplyConsumer() {
+                @Override
+                public void ack() {
+                    outcome.complete(true);
+                }
+
+                @Override
+                public void nack() {
+                    outcome.complete(false);
+                }
+            });
+        }
+        List<ReceivedMessage> failed = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            if (outcomes.get(i).join()) {
+                handled.add(messages.get(i).getAckId());
+            } else {
+                failed.add(messages.get(i));
+            }
+        }
+        return failed;
+    }
+
+    private SubscriberStub subscriberStub() throws IOException {
+        if (subscriberStub == null) {
+            synchronized (this) {
+                if (subscriberStub == null) {
+                    subscriberStub = GrpcSubscriberStub.create(SubscriberStubSettings.newBuilder().build());
+                }
+            }
+        }
+        return subscriberStub;
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (subscriberStub != null) {
+                subscriberStub.close();
+            }
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, e, () -> "Error closing dead-letter subscriber stub");
+        }
+    }
+}
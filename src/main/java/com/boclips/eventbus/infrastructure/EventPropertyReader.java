@@ -0,0 +1,90 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.BoclipsEvent;
+import com.boclips.eventbus.config.EventConfigurationExtractor;
+import com.boclips.eventbus.config.InvalidMessagingConfiguration;
+import org.springframework.beans.BeanUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Reads a property that event types declare as a getter path on {@link BoclipsEvent}, such as the entity id or the
+ * subtype, resolving the path once per event type.
+ */
+class EventPropertyReader {
+    private static final EventConfigurationExtractor eventConfigurationExtractor = new EventConfigurationExtractor();
+
+    private final String property;
+    private final Function<Class<?>, String> pathByType;
+    private final Map<Class<?>, List<Method>> gettersByType = new ConcurrentHashMap<>();
+
+    private EventPropertyReader(String property, Function<Class<?>, String> pathByType) {
+        this.property = property;
+        this.pathByType = pathByType;
+    }
+
+    /**
+     * Reads {@link BoclipsEvent#entityId()}.
+     */
+    static EventPropertyReader entityId() {
+        return new EventPropertyReader("entity id", eventConfigurationExtractor::getEntityIdPath);
+    }
+
+    /**
+     * Reads {@link BoclipsEvent#subtype()}.
+     */
+    static EventPropertyReader subtype() {
+        return new EventPropertyReader("subtype", eventConfigurationExtractor::getSubtypePath);
+    }
+
+    /**
+     * Fails when the event type declares a path that cannot be resolved.
+     */
+    void register(Class<?> eventType) {
+        gettersByType.computeIfAbsent(eventType, this::resolve);
+    }
+
+    /**
+     * The property of the event, or null when its type does not declare one or a value on the path is null.
+     */
+    String of(Object event) {
+        Object value = event;
+        for (Method getter : gettersByType.computeIfAbsent(event.getClass(), this::resolve)) {
+            try {
+                value = getter.invoke(value);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException("Could not read " + property + " of " + event.getClass().getSimpleName(), e);
+            }
+            if (value == null) {
+                return null;
+            }
+        }
+        return value == event ? null : value.toString();
+    }
+
+    private List<Method> resolve(Class<?> eventType) {
+        List<Method> getters = new ArrayList<>();
+        String path = pathByType.apply(eventType);
+        if (path.isEmpty()) {
+            return getters;
+        }
+
+        Class<?> type = eventType;
+        for (String name : path.split("\\.")) {
+            PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(type, name);
+            if (descriptor == null || descriptor.getReadMethod() == null) {
+                throw new InvalidMessagingConfiguration("Path " + path + " to the " + property + " of " + eventType.getName() + " has no getter for " + name + " on " + type.getSimpleName());
+            }
+            getters.add(descriptor.getReadMethod());
+            type = descriptor.getPropertyType();
+        }
+        return getters;
+    }
+}
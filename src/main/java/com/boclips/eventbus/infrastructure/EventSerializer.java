@@ -1,13 +1,29 @@
 package com.boclips.eventbus.infrastructure;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Codec shared by the event buses. Readers and writers are built once per event class, with their root
+ * (de)serializers already resolved, so encoding and decoding do no type lookups.
+ */
 public class EventSerializer {
 
     private final ObjectMapper objectMapper;
+    private final ConcurrentMap<Class<?>, ObjectReader> readerByType = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, ObjectWriter> writerByType = new ConcurrentHashMap<>();
 
     public EventSerializer() {
         this(ObjectMapperProvider.get());
@@ -17,19 +33,138 @@ public class EventSerializer {
         this.objectMapper = objectMapper;
     }
 
+    /**
+     * Builds the reader and writer for an event class ahead of the first message.
+     */
+    public void register(Class<?> eventType) {
+        reader(eventType);
+        writer(eventType);
+    }
+
     public byte[] serialise(Object event) {
         try {
-            return objectMapper.writeValueAsBytes(event);
+            return writer(event.getClass()).writeValueAsBytes(event);
         } catch (JsonProcessingException e) {
-            throw new RuntimeException("Failed serialising event: " + event);
+            throw new RuntimeException("Failed serialising event: " + event, e);
         }
     }
 
+    /**
+     * Jackson encodes into its thread-local recycled buffers and copies the result out once; the resulting array is
+     * never shared, so it is wrapped rather than copied a second time by {@link ByteString#copyFrom(byte[])}.
+     */
+    public ByteString serialiseToByteString(Object event) {
+        return UnsafeByteOperations.unsafeWrap(serialise(event));
+    }
+
     public Object deserialise(Object event, byte[] eventBytes) {
         try {
-            return objectMapper.readValue(eventBytes, event.getClass());
+            return reader(event.getClass()).readValue(eventBytes);
         } catch (IOException e) {
             throw new RuntimeException("Failed de-serialising event: " + event, e);
         }
     }
+
+    public <T> T deserialise(Class<T> eventType, ByteString eventBytes) {
+        try {
+            return reader(eventType).readValue(eventBytes.newInput());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed de-serialising event of type " + eventType.getSimpleName(), e);
+        }
+    }
+
+    /**
+     * The elements of the list in the given top-level property of an encoded event, parsed one at a time as they are
+     * iterated over. Every iterator parses the payload afresh, and a missing or null list has no elements.
+     */
+    public <E> Iterable<E> deserialiseElements(ByteString eventBytes, String property, Class<E> elementType) {
+        ObjectReader elementReader = reader(elementType);
+        return () -> new ElementIterator<>(elementReader, eventBytes, property);
+    }
+
+    private ObjectReader reader(Class<?> eventType) {
+        ObjectReader reader = readerByType.get(eventType);
+        return reader != null ? reader : readerByType.computeIfAbsent(eventType, objectMapper::readerFor);
+    }
+
+    private ObjectWriter writer(Class<?> eventType) {
+        ObjectWriter writer = writerByType.get(eventType);
+        return writer != null ? writer : writerByType.computeIfAbsent(eventType, objectMapper::writerFor);
+    }
+
+    private static class ElementIterator<E> implements Iterator<E> {
+        private final ObjectReader elementReader;
+        private final String property;
+        private JsonParser parser;
+        private boolean advanced;
+
+        ElementIterator(ObjectReader elementReader, ByteString eventBytes, String property) {
+            this.elementReader = elementReader;
+            this.property = property;
+            try {
+                parser = elementReader.getFactory().createParser(eventBytes.newInput());
+                seekElements();
+            } catch (IOException e) {
+                throw new RuntimeException("Failed de-serialising " + property + " of event", e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (parser == null) {
+                return false;
+            }
+            try {
+                if (!advanced) {
+                    advanced = true;
+                    if (parser.nextToken() == JsonToken.END_ARRAY) {
+                        close();
+                        return false;
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                throw new RuntimeException("Failed de-serialising " + property + " of event", e);
+            }
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            advanced = false;
+            try {
+                return elementReader.readValue(parser);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed de-serialising element of " + property, e);
+            }
+        }
+
+        /**
+         * Moves the parser onto the start of the list, skipping all other properties, or closes it if there is no list.
+         */
+        private void seekElements() throws IOException {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected an event object, but found " + parser.currentToken());
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                boolean elements = property.equals(parser.getCurrentName());
+                JsonToken value = parser.nextToken();
+                if (elements && value == JsonToken.START_ARRAY) {
+                    return;
+                }
+                if (elements && value != JsonToken.VALUE_NULL) {
+                    throw new IOException("Expected " + property + " to be a list, but found " + value);
+                }
+                parser.skipChildren();
+            }
+            close();
+        }
+
+        private void close() throws IOException {
+            parser.close();
+            parser = null;
+        }
+    }
 }
@@ -0,0 +1,376 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.FromStringDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.datatype.jsr310.deser.InstantDeserializer;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Currency;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Codecs for the value types every event carries, which write exactly what {@code JavaTimeModule} and Jackson's JDK
+ * (de)serializers write, and read everything they read. The common shapes ({@code 2020-03-01T10:15:30.123Z},
+ * {@code 2020-03-01}) are handled character by character; anything else is left to the standard codec. Must be
+ * registered after {@code JavaTimeModule}, so that it takes precedence.
+ */
+class EventValuesModule extends SimpleModule {
+    private static final ZoneId UTC = ZoneId.of("UTC");
+    private static final int MAX_CACHED_LOCALES = 256;
+
+    EventValuesModule() {
+        super(EventValuesModule.class.getSimpleName());
+        addSerializer(ZonedDateTime.class, new ZonedDateTimeSerializer());
+        addDeserializer(ZonedDateTime.class, new ZonedDateTimeDeserializer());
+        addSerializer(LocalDate.class, new LocalDateSerializer());
+        addDeserializer(LocalDate.class, new LocalDateDeserializer());
+        addSerializer(Locale.class, new LocaleSerializer());
+        addDeserializer(Locale.class, new LocaleDeserializer());
+        addSerializer(Currency.class, new CurrencySerializer());
+        addDeserializer(Currency.class, new CurrencyDeserializer());
+    }
+
+    static class ZonedDateTimeSerializer extends StdSerializer<ZonedDateTime> {
+        private final JsonSerializer<ZonedDateTime> fallback = com.fasterxml.jackson.datatype.jsr310.ser.ZonedDateTimeSerializer.INSTANCE;
+
+        ZonedDateTimeSerializer() {
+            super(ZonedDateTime.class);
+        }
+
+        @Override
+        public void serialize(ZonedDateTime value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            int offsetSeconds = value.getOffset().getTotalSeconds();
+            if (!isPlainIso(provider) || !isFourDigitYear(value.getYear()) || offsetSeconds % 60 != 0) {
+                fallback.serialize(value, gen, provider);
+                return;
+            }
+            char[] text = new char[35];
+            int length = writeDate(text, 0, value.getYear(), value.getMonthValue(), value.getDayOfMonth());
+            text[length++] = 'T';
+            length = writeTwoDigits(text, length, value.getHour());
+            text[length++] = ':';
+            length = writeTwoDigits(text, length, value.getMinute());
+            text[length++] = ':';
+            length = writeTwoDigits(text, length, value.getSecond());
+            length = writeFraction(text, length, value.getNano());
+            length = writeOffset(text, length, offsetSeconds / 60);
+            gen.writeString(text, 0, length);
+        }
+
+        private static boolean isPlainIso(SerializerProvider provider) {
+            return !provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                    && !provider.isEnabled(SerializationFeature.WRITE_DATES_WITH_ZONE_ID)
+                    && !provider.getConfig().hasExplicitTimeZone();
+        }
+
+        /**
+         * Like {@code DateTimeFormatter.ISO_LOCAL_TIME}: nothing for whole seconds, otherwise without trailing zeros.
+         */
+        private static int writeFraction(char[] text, int position, int nano) {
+            if (nano == 0) {
+                return position;
+            }
+            text[position++] = '.';
+            int digits = 9;
+            while (nano % 10 == 0) {
+                nano /= 10;
+                digits--;
+            }
+            for (int i = position + digits - 1; i >= position; i--) {
+                text[i] = (char) ('0' + nano % 10);
+                nano /= 10;
+            }
+            return position + digits;
+        }
+
+        private static int writeOffset(char[] text, int position, int offsetMinutes) {
+            if (offsetMinutes == 0) {
+                text[position++] = 'Z';
+                return position;
+            }
+            text[position++] = offsetMinutes < 0 ? '-' : '+';
+            offsetMinutes = Math.abs(offsetMinutes);
+            position = writeTwoDigits(text, position, offsetMinutes / 60);
+            text[position++] = ':';
+            return writeTwoDigits(text, position, offsetMinutes % 60);
+        }
+    }
+
+    static class ZonedDateTimeDeserializer extends StdDeserializer<ZonedDateTime> {
+        private final JsonDeserializer<ZonedDateTime> fallback = InstantDeserializer.ZONED_DATE_TIME;
+        private final ConcurrentMap<String, ZoneId> zoneIdByTimeZone = new ConcurrentHashMap<>();
+
+        ZonedDateTimeDeserializer() {
+            super(ZonedDateTime.class);
+            zoneIdByTimeZone.put(UTC.getId(), UTC);
+        }
+
+        @Override
+        public ZonedDateTime deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.hasToken(JsonToken.VALUE_STRING)) {
+                ZonedDateTime value = parse(p.getTextCharacters(), p.getTextOffset(), p.getTextLength(), ctxt);
+                if (value != null) {
+                    return value;
+                }
+            }
+            return fallback.deserialize(p, ctxt);
+        }
+
+        /**
+         * Parses {@code yyyy-MM-ddTHH:mm:ss[.S{1,9}](Z|+HH:MM|-HH:MM)}, returning null for anything else.
+         */
+        private ZonedDateTime parse(char[] text, int offset, int length, DeserializationContext ctxt) {
+            int end = offset + length;
+            if (length < 20 || !isDate(text, offset) || text[offset + 10] != 'T'
+                    || !isTwoDigits(text, offset + 11) || text[offset + 13] != ':'
+                    || !isTwoDigits(text, offset + 14) || text[offset + 16] != ':'
+                    || !isTwoDigits(text, offset + 17)) {
+                return null;
+            }
+            int position = offset + 19;
+            int nano = 0;
+            if (text[position] == '.') {
+                int digits = 0;
+                position++;
+                while (position < end && isDigit(text[position]) && digits < 9) {
+                    nano = nano * 10 + (text[position++] - '0');
+                    digits++;
+                }
+                if (digits == 0) {
+                    return null;
+                }
+                for (; digits < 9; digits++) {
+                    nano *= 10;
+                }
+            }
+
+            ZoneOffset zoneOffset;
+            if (position == end - 1 && text[position] == 'Z') {
+                zoneOffset = ZoneOffset.UTC;
+            } else if (position == end - 6 && (text[position] == '+' || text[position] == '-')
+                    && isTwoDigits(text, position + 1) && text[position + 3] == ':' && isTwoDigits(text, position + 4)) {
+                int sign = text[position] == '-' ? -1 : 1;
+                zoneOffset = offsetOf(sign * twoDigits(text, position + 1), sign * twoDigits(text, position + 4));
+            } else {
+                return null;
+            }
+            if (zoneOffset == null) {
+                return null;
+            }
+
+            try {
+                LocalDateTime dateTime = LocalDateTime.of(
+                        fourDigits(text, offset), twoDigits(text, offset + 5), twoDigits(text, offset + 8),
+                        twoDigits(text, offset + 11), twoDigits(text, offset + 14), twoDigits(text, offset + 17), nano
+                );
+                if (!ctxt.isEnabled(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE)) {
+                    return ZonedDateTime.of(dateTime, zoneOffset);
+                }
+                ZoneId zone = contextZone(ctxt.getTimeZone());
+                if (zone == UTC && zoneOffset == ZoneOffset.UTC) {
+                    return ZonedDateTime.ofStrict(dateTime, ZoneOffset.UTC, UTC);
+                }
+                return ZonedDateTime.ofInstant(dateTime, zoneOffset, zone);
+            } catch (DateTimeException e) {
+                return null;
+            }
+        }
+
+        private ZoneId contextZone(TimeZone timeZone) {
+            ZoneId zone = zoneIdByTimeZone.get(timeZone.getID());
+            return zone != null ? zone : zoneIdByTimeZone.computeIfAbsent(timeZone.getID(), id -> timeZone.toZoneId());
+        }
+
+        private static ZoneOffset offsetOf(int hours, int minutes) {
+            try {
+                return ZoneOffset.ofHoursMinutes(hours, minutes);
+            } catch (DateTimeException e) {
+                return null;
+            }
+        }
+    }
+
+    static class LocalDateSerializer extends StdSerializer<LocalDate> {
+        private final JsonSerializer<LocalDate> fallback = com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer.INSTANCE;
+
+        LocalDateSerializer() {
+            super(LocalDate.class);
+        }
+
+        @Override
+        public void serialize(LocalDate value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS) || !isFourDigitYear(value.getYear())) {
+                fallback.serialize(value, gen, provider);
+                return;
+            }
+            char[] text = new char[10];
+            gen.writeString(text, 0, writeDate(text, 0, value.getYear(), value.getMonthValue(), value.getDayOfMonth()));
+        }
+    }
+
+    static class LocalDateDeserializer extends StdDeserializer<LocalDate> {
+        private final JsonDeserializer<LocalDate> fallback = com.fasterxml.jackson.datatype.jsr310.deser.LocalDateDeserializer.INSTANCE;
+
+        LocalDateDeserializer() {
+            super(LocalDate.class);
+        }
+
+        @Override
+        public LocalDate deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.hasToken(JsonToken.VALUE_STRING) && p.getTextLength() == 10) {
+                char[] text = p.getTextCharacters();
+                int offset = p.getTextOffset();
+                if (isDate(text, offset)) {
+                    try {
+                        return LocalDate.of(fourDigits(text, offset), twoDigits(text, offset + 5), twoDigits(text, offset + 8));
+                    } catch (DateTimeException e) {
+                        // let the standard deserializer report it
+                    }
+                }
+            }
+            return fallback.deserialize(p, ctxt);
+        }
+    }
+
+    /**
+     * Locales are written with {@link Locale#toString()}, like Jackson does, but each distinct one is only rendered once.
+     */
+    static class LocaleSerializer extends StdSerializer<Locale> {
+        private final ConcurrentMap<Locale, String> textByLocale = new ConcurrentHashMap<>();
+
+        LocaleSerializer() {
+            super(Locale.class);
+        }
+
+        @Override
+        public void serialize(Locale value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            String text = textByLocale.get(value);
+            if (text == null) {
+                text = value.toString();
+                if (textByLocale.size() < MAX_CACHED_LOCALES) {
+                    textByLocale.put(value, text);
+                }
+            }
+            gen.writeString(text);
+        }
+    }
+
+    /**
+     * Leaves parsing to Jackson's own deserializer, remembering what each distinct text was parsed into.
+     */
+    static class LocaleDeserializer extends StdDeserializer<Locale> {
+        private final JsonDeserializer<?> fallback = FromStringDeserializer.findDeserializer(Locale.class);
+        private final ConcurrentMap<String, Locale> localeByText = new ConcurrentHashMap<>();
+
+        LocaleDeserializer() {
+            super(Locale.class);
+        }
+
+        @Override
+        public Locale deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (!p.hasToken(JsonToken.VALUE_STRING)) {
+                return (Locale) fallback.deserialize(p, ctxt);
+            }
+            String text = p.getText();
+            Locale locale = localeByText.get(text);
+            if (locale == null) {
+                locale = (Locale) fallback.deserialize(p, ctxt);
+                if (locale != null && localeByText.size() < MAX_CACHED_LOCALES) {
+                    localeByText.put(text, locale);
+                }
+            }
+            return locale;
+        }
+    }
+
+    static class CurrencySerializer extends StdSerializer<Currency> {
+        CurrencySerializer() {
+            super(Currency.class);
+        }
+
+        @Override
+        public void serialize(Currency value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeString(value.getCurrencyCode());
+        }
+    }
+
+    static class CurrencyDeserializer extends StdDeserializer<Currency> {
+        private final JsonDeserializer<?> fallback = FromStringDeserializer.findDeserializer(Currency.class);
+
+        CurrencyDeserializer() {
+            super(Currency.class);
+        }
+
+        @Override
+        public Currency deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.hasToken(JsonToken.VALUE_STRING) && p.getTextLength() == 3) {
+                try {
+                    return Currency.getInstance(p.getText());
+                } catch (IllegalArgumentException e) {
+                    // let the standard deserializer report it
+                }
+            }
+            return (Currency) fallback.deserialize(p, ctxt);
+        }
+    }
+
+    private static boolean isFourDigitYear(int year) {
+        return year >= 0 && year <= 9999;
+    }
+
+    private static int writeDate(char[] text, int position, int year, int month, int day) {
+        position = writeTwoDigits(text, position, year / 100);
+        position = writeTwoDigits(text, position, year % 100);
+        text[position++] = '-';
+        position = writeTwoDigits(text, position, month);
+        text[position++] = '-';
+        return writeTwoDigits(text, position, day);
+    }
+
+    private static int writeTwoDigits(char[] text, int position, int value) {
+        text[position++] = (char) ('0' + value / 10);
+        text[position++] = (char) ('0' + value % 10);
+        return position;
+    }
+
+    private static boolean isDate(char[] text, int offset) {
+        return isTwoDigits(text, offset) && isTwoDigits(text, offset + 2) && text[offset + 4] == '-'
+                && isTwoDigits(text, offset + 5) && text[offset + 7] == '-' && isTwoDigits(text, offset + 8);
+    }
+
+    private static boolean isTwoDigits(char[] text, int position) {
+        return isDigit(text[position]) && isDigit(text[position + 1]);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int twoDigits(char[] text, int position) {
+        return (text[position] - '0') * 10 + (text[position + 1] - '0');
+    }
+
+    private static int fourDigits(char[] text, int position) {
+        return twoDigits(text, position) * 100 + twoDigits(text, position + 2);
+    }
+}
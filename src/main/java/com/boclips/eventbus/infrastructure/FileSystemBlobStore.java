@@ -0,0 +1,53 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.BlobStore;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Keeps blobs as files under a directory, with keys as relative paths. Meant for tests and for services whose
+ * producers and consumers share a disk.
+ */
+public class FileSystemBlobStore implements BlobStore {
+    private final Path directory;
+
+    public FileSystemBlobStore(Path directory) {
+        this.directory = directory.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public void put(String key, byte[] content) throws IOException {
+        Path file = fileOf(key);
+        Files.createDirectories(file.getParent());
+        // readers never see a partially written blob
+        Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, content);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    @Override
+    public byte[] get(String key) throws IOException {
+        try {
+            return Files.readAllBytes(fileOf(key));
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException("No blob " + key + " in " + directory);
+        }
+    }
+
+    private Path fileOf(String key) {
+        Path file = directory.resolve(key).normalize();
+        if (!file.startsWith(directory) || file.equals(directory)) {
+            throw new IllegalArgumentException("Invalid blob key " + key);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,67 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.BoclipsEvent;
+import com.boclips.eventbus.config.EventConfigurationExtractor;
+import com.boclips.eventbus.config.PayloadFormat;
+import com.boclips.eventbus.events.base.AbstractEvent;
+
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The attributes published alongside every event, so that messages can be routed and filtered without decoding
+ * them. Everything but the timestamp and subtype is the same for all events of a type and is computed once per type.
+ */
+class MessageAttributes {
+    static final String EVENT_NAME = "eventName";
+    static final String SCHEMA_VERSION = "schemaVersion";
+    static final String TIMESTAMP = "timestamp";
+    static final String SUBTYPE = "subtype";
+    static final String PRODUCER = "producer";
+    static final String CONTENT_TYPE = "contentType";
+    static final String CONTENT_ENCODING = "contentEncoding";
+    static final String CHUNK_ID = "chunkId";
+    static final String CHUNK_INDEX = "chunkIndex";
+    static final String CHUNK_COUNT = "chunkCount";
+    static final String CLAIM_CHECK = "claimCheck";
+
+    private final EventConfigurationExtractor eventConfigurationExtractor = new EventConfigurationExtractor();
+    private final EventPropertyReader subtypes = EventPropertyReader.subtype();
+    private final Map<Class<?>, Map<String, String>> typeAttributesByType = new ConcurrentHashMap<>();
+    private final String producer;
+
+    MessageAttributes(String producer) {
+        this.producer = producer;
+    }
+
+    Map<String, String> of(Object event) {
+        Map<String, String> typeAttributes = typeAttributesByType.computeIfAbsent(event.getClass(), this::typeAttributes);
+        ZonedDateTime timestamp = event instanceof AbstractEvent ? ((AbstractEvent) event).getTimestamp() : null;
+        String subtype = subtypes.of(event);
+        if (timestamp == null && subtype == null) {
+            return typeAttributes;
+        }
+
+        Map<String, String> attributes = new HashMap<>(typeAttributes);
+        if (timestamp != null) {
+            attributes.put(TIMESTAMP, timestamp.toInstant().toString());
+        }
+        if (subtype != null) {
+            attributes.put(SUBTYPE, subtype);
+        }
+        return attributes;
+    }
+
+    private Map<String, String> typeAttributes(Class<?> eventType) {
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put(EVENT_NAME, eventConfigurationExtractor.getEventName(eventType));
+        attributes.put(SCHEMA_VERSION, String.valueOf(eventConfigurationExtractor.getSchemaVersion(eventType)));
+        attributes.put(PRODUCER, producer);
+        attributes.put(CONTENT_TYPE, PayloadFormat.JSON.getContentType());
+        attributes.put(CONTENT_ENCODING, "identity");
+        return Collections.unmodifiableMap(attributes);
+    }
+}
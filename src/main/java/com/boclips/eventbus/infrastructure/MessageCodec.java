@@ -0,0 +1,149 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.config.PayloadFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import com.google.pubsub.v1.PubsubMessage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes events in the format configured for their topic and decodes received messages in the format named by their
+ * {@code contentType} attribute, so that producers and consumers can switch formats independently.
+ */
+class MessageCodec {
+    private final Map<PayloadFormat, ObjectMapper> mapperByFormat = new EnumMap<>(PayloadFormat.class);
+    private final Map<PayloadFormat, EventSerializer> serializerByFormat = new EnumMap<>(PayloadFormat.class);
+
+    MessageCodec() {
+        this(false);
+    }
+
+    MessageCodec(boolean tuned) {
+        mapperByFormat.put(PayloadFormat.JSON, tuned ? ObjectMapperProvider.sharedTuned() : ObjectMapperProvider.get());
+        mapperByFormat.put(PayloadFormat.SMILE, tuned ? ObjectMapperProvider.sharedTunedSmile() : ObjectMapperProvider.getSmile());
+        mapperByFormat.forEach((format, mapper) -> serializerByFormat.put(format, new EventSerializer(mapper)));
+    }
+
+    void register(Class<?> eventType) {
+        serializerByFormat.values().forEach(serializer -> serializer.register(eventType));
+    }
+
+    ByteString encode(Object event, PayloadFormat format) {
+        return serializerByFormat.get(format).serialiseToByteString(event);
+    }
+
+    /**
+     * Encodes the event as copies that each carry a slice of the list in {@code property}, so that each copy encodes
+     * to at most {@code maxBytes}. The estimate is conservative, and an element that does not fit on its own gets a
+     * chunk of its own. An event that fits as a whole is encoded as a single chunk.
+     */
+    List<ByteString> encodeChunks(Object event, PayloadFormat format, String property, long maxBytes) {
+        ByteString whole = encode(event, format);
+        if (whole.size() <= maxBytes) {
+            return Collections.singletonList(whole);
+        }
+        ObjectMapper mapper = mapperByFormat.get(format);
+        ObjectNode tree = mapper.valueToTree(event);
+        JsonNode elements = tree.get(property);
+        if (elements == null || !elements.isArray() || elements.size() < 2) {
+            return Collections.singletonList(whole);
+        }
+
+        try {
+            tree.set(property, mapper.createArrayNode());
+            long emptySize = mapper.writeValueAsBytes(tree).length;
+            List<ByteString> chunks = new ArrayList<>();
+            ArrayNode chunk = mapper.createArrayNode();
+            long chunkSize = emptySize;
+            for (JsonNode element : elements) {
+                long elementSize = mapper.writeValueAsBytes(element).length + 1;
+                if (chunk.size() > 0 && chunkSize + elementSize > maxBytes) {
+                    chunks.add(encodeTree(mapper, tree.set(property, chunk)));
+                    chunk = mapper.createArrayNode();
+                    chunkSize = emptySize;
+                }
+                chunk.add(element);
+                chunkSize += elementSize;
+            }
+            chunks.add(encodeTree(mapper, tree.set(property, chunk)));
+            return chunks;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed splitting event: " + event, e);
+        }
+    }
+
+    /**
+     * Encodes the event without the properties at the given dotted paths, e.g. {@code "captions.content"}. Paths that
+     * lead nowhere are ignored.
+     */
+    ByteString encodeWithout(Object event, PayloadFormat format, List<String> paths) {
+        ObjectMapper mapper = mapperByFormat.get(format);
+        ObjectNode tree = mapper.valueToTree(event);
+        for (String path : paths) {
+            String[] names = path.split("\\.");
+            JsonNode parent = tree;
+            for (int i = 0; i < names.length - 1 && parent != null; i++) {
+                parent = parent.get(names[i]);
+            }
+            if (parent instanceof ObjectNode) {
+                ((ObjectNode) parent).remove(names[names.length - 1]);
+            }
+        }
+        try {
+            return encodeTree(mapper, tree);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed serializing event without " + paths + ": " + event, e);
+        }
+    }
+
+    <T> T decode(Class<T> eventType, PubsubMessage message) {
+        return serializerFor(message).deserialise(eventType, message.getData());
+    }
+
+    /**
+     * Decodes the elements of the list in {@code property} lazily, see {@link EventSerializer#deserialiseElements}.
+     */
+    <E> Iterable<E> decodeElements(String property, Class<E> elementType, PubsubMessage message) {
+        return serializerFor(message).deserialiseElements(message.getData(), property, elementType);
+    }
+
+    /**
+     * Joins chunks made by {@link #encodeChunks}, given in order, back into the payload of the whole event, in the
+     * format of the chunks.
+     */
+    ByteString joinChunks(List<PubsubMessage> chunks, String property) {
+        ObjectMapper mapper = mapperByFormat.get(formatOf(chunks.get(0)));
+        try {
+            ObjectNode tree = (ObjectNode) mapper.readTree(chunks.get(0).getData().newInput());
+            ArrayNode elements = tree.withArray(property);
+            for (PubsubMessage chunk : chunks.subList(1, chunks.size())) {
+                elements.addAll((ArrayNode) mapper.readTree(chunk.getData().newInput()).get(property));
+            }
+            return encodeTree(mapper, tree);
+        } catch (IOException | ClassCastException e) {
+            throw new RuntimeException("Failed joining chunks of " + property, e);
+        }
+    }
+
+    private static ByteString encodeTree(ObjectMapper mapper, JsonNode tree) throws IOException {
+        return UnsafeByteOperations.unsafeWrap(mapper.writeValueAsBytes(tree));
+    }
+
+    private EventSerializer serializerFor(PubsubMessage message) {
+        return serializerByFormat.get(formatOf(message));
+    }
+
+    private static PayloadFormat formatOf(PubsubMessage message) {
+        return PayloadFormat.forContentType(message.getAttributesOrDefault(MessageAttributes.CONTENT_TYPE, null));
+    }
+}
@@ -4,18 +4,71 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
 
 import java.math.BigDecimal;
 
 public class ObjectMapperProvider {
 
     public static ObjectMapper get() {
-        ObjectMapper objectMapper = new ObjectMapper();
+        return configure(new ObjectMapper());
+    }
+
+    /**
+     * A mapper for Jackson's binary Smile format, configured like the JSON one.
+     */
+    public static ObjectMapper getSmile() {
+        return configure(new ObjectMapper(new SmileFactory()));
+    }
+
+    /**
+     * A mapper that reads and writes the same JSON as {@link #get()}, but accesses event properties through generated
+     * bytecode instead of reflection.
+     */
+    public static ObjectMapper getTuned() {
+        return tune(get());
+    }
+
+    /**
+     * The Smile counterpart of {@link #getTuned()}.
+     */
+    public static ObjectMapper getTunedSmile() {
+        return tune(getSmile());
+    }
+
+    /**
+     * The tuned mapper the bus shares between all topics, so that the bytecode is only generated once per event type.
+     * It must not be reconfigured.
+     */
+    static ObjectMapper sharedTuned() {
+        return Tuned.JSON;
+    }
+
+    /**
+     * The Smile counterpart of {@link #sharedTuned()}.
+     */
+    static ObjectMapper sharedTunedSmile() {
+        return Tuned.SMILE;
+    }
+
+    private static ObjectMapper configure(ObjectMapper objectMapper) {
         objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.registerModule(new EventValuesModule());
         objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
         objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
         objectMapper.configOverride(BigDecimal.class).setFormat(JsonFormat.Value.forShape(JsonFormat.Shape.STRING));
         return objectMapper;
     }
+
+    private static ObjectMapper tune(ObjectMapper objectMapper) {
+        objectMapper.registerModule(new AfterburnerModule());
+        return objectMapper;
+    }
+
+    private static class Tuned {
+        static final ObjectMapper JSON = getTuned();
+        static final ObjectMapper SMILE = getTunedSmile();
+    }
 }
@@ -0,0 +1,309 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.google.pubsub.v1.PubsubMessage;
+import lombok.Value;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of messages to publish, kept in memory-mapped segment files so that appending is a memory copy
+ * and appended messages survive the JVM dying. Records are read back in the order they were appended. The position
+ * up to which they have been relayed is checkpointed, so that a reopened log resumes from there, and segments before
+ * it are deleted.
+ * <p>
+ * A record is the length of its body, the CRC32 of the body and the body: the topic name and the serialised message.
+ * The length is written last, and a record whose checksum does not match ends the log, so that a record torn by a
+ * crash is never read.
+ */
+class OutboxLog implements Closeable {
+    private static final String SEGMENT_SUFFIX = ".segment";
+    private static final String CHECKPOINT = "checkpoint";
+    private static final String PARKED = "parked";
+    private static final int HEADER_BYTES = 8;
+
+    private final Logger logger = Logger.getLogger(OutboxLog.class.getName());
+    private final Path directory;
+    private final int segmentBytes;
+    private final boolean sync;
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private Segment writeSegment;
+    private Position committed;
+    private Position read;
+    private boolean closed;
+
+    OutboxLog(Path directory, int segmentBytes, boolean sync) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.sync = sync;
+        Files.createDirectories(directory);
+
+        Position checkpoint = readCheckpoint();
+        for (long id : segmentIds()) {
+            if (checkpoint != null && id < checkpoint.getSegment()) {
+                Files.deleteIfExists(segmentPath(id));
+            } else {
+                segments.put(id, Segment.open(id, segmentPath(id), segmentBytes));
+            }
+        }
+        if (segments.isEmpty()) {
+            long id = checkpoint == null ? 0 : checkpoint.getSegment();
+            segments.put(id, Segment.open(id, segmentPath(id), segmentBytes));
+        }
+        if (checkpoint == null || !segments.containsKey(checkpoint.getSegment())) {
+            checkpoint = new Position(segments.firstKey(), 0);
+        }
+        committed = checkpoint;
+        read = checkpoint;
+        writeSegment = segments.lastEntry().getValue();
+        recoverWriteOffset(writeSegment);
+    }
+
+    /**
+     * Appends the message for the topic, returning where its record starts.
+     */
+    synchronized Position append(String topicName, PubsubMessage message) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Outbox in " + directory + " is closed");
+        }
+        byte[] topic = topicName.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = message.toByteArray();
+        int length = 2 + topic.length + payload.length;
+        if (writeSegment.writeOffset + HEADER_BYTES + length > writeSegment.capacity) {
+            roll(HEADER_BYTES + length);
+        }
+
+        Segment segment = writeSegment;
+        int offset = segment.writeOffset;
+        ByteBuffer body = segment.buffer.duplicate();
+        body.position(offset + HEADER_BYTES);
+        body.putShort((short) topic.length).put(topic).put(payload);
+        segment.buffer.putInt(offset + 4, checksum(segment.buffer, offset + HEADER_BYTES, length));
+        segment.buffer.putInt(offset, length);
+        segment.writeOffset = offset + HEADER_BYTES + length;
+        if (sync) {
+            segment.buffer.force();
+        }
+        return new Position(segment.id, offset);
+    }
+
+    /**
+     * Reads up to {@code max} records following the ones read before, or since the last {@link #rewind()}.
+     */
+    synchronized List<Record> read(int max) throws IOException {
+        List<Record> records = new ArrayList<>();
+        while (records.size() < max && !closed) {
+            Segment segment = segments.get(read.getSegment());
+            int offset = read.getOffset();
+            boolean available = segment == writeSegment ? offset < segment.writeOffset : isValidAt(segment, offset);
+            if (!available) {
+                Long next = segments.higherKey(segment.id);
+                if (next == null) {
+                    break;
+                }
+                if (offset + 4 <= segment.capacity && segment.buffer.getInt(offset) != 0) {
+                    logger.warning(() -> "Skipping corrupt records at " + segment.id + ":" + offset + " of the outbox in " + directory);
+                }
+                read = new Position(next, 0);
+                continue;
+            }
+
+            int length = segment.buffer.getInt(offset);
+            ByteBuffer body = segment.buffer.duplicate();
+            body.position(offset + HEADER_BYTES).limit(offset + HEADER_BYTES + length);
+            byte[] topic = new byte[body.getShort()];
+            body.get(topic);
+            Position start = read;
+            read = new Position(segment.id, offset + HEADER_BYTES + length);
+            records.add(new Record(new String(topic, StandardCharsets.UTF_8), PubsubMessage.parseFrom(body), start, read));
+        }
+        return records;
+    }
+
+    /**
+     * Records that everything before the position has been relayed, so that it is not read again, not even after
+     * reopening the log.
+     */
+    synchronized void commit(Position position) throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT);
+        Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+        Files.write(temporary, ByteBuffer.allocate(12).putLong(position.getSegment()).putInt(position.getOffset()).array());
+        Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        committed = position;
+
+        Iterator<Map.Entry<Long, Segment>> relayed = segments.headMap(position.getSegment()).entrySet().iterator();
+        while (relayed.hasNext()) {
+            Segment segment = relayed.next().getValue();
+            relayed.remove();
+            try {
+                segment.channel.close();
+                Files.deleteIfExists(segment.path);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, e, () -> "Could not delete relayed outbox segment " + segment.path);
+            }
+        }
+    }
+
+    /**
+     * Keeps a copy of a record that is given up on in the {@code parked} directory of the log, named after its
+     * position and topic, holding the serialised message, so that it can be inspected and published by hand.
+     */
+    synchronized Path park(Record record) throws IOException {
+        Path parked = directory.resolve(PARKED);
+        Files.createDirectories(parked);
+        Position start = record.getStart();
+        Path file = parked.resolve(String.format("%020d-%010d-%s.message", start.getSegment(), start.getOffset(), record.getTopicName()));
+        Files.write(file, record.getMessage().toByteArray());
+        return file;
+    }
+
+    /**
+     * Goes back to reading from the last committed position, e.g. after failing to relay what was read since.
+     */
+    synchronized void rewind() {
+        read = committed;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        writeSegment.buffer.force();
+        for (Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+    }
+
+    private void roll(int recordBytes) throws IOException {
+        long id = writeSegment.id + 1;
+        writeSegment = Segment.open(id, segmentPath(id), Math.max(segmentBytes, recordBytes));
+        segments.put(id, writeSegment);
+    }
+
+    /**
+     * Finds the end of the last complete record of a segment written before the log was opened, and clears whatever
+     * follows it.
+     */
+    private void recoverWriteOffset(Segment segment) {
+        int offset = 0;
+        while (isValidAt(segment, offset)) {
+            offset += HEADER_BYTES + segment.buffer.getInt(offset);
+        }
+        segment.writeOffset = offset;
+        if (offset + 4 <= segment.capacity && segment.buffer.getInt(offset) != 0) {
+            logger.warning(() -> "Discarding an incomplete record at " + segment.id + ":" + segment.writeOffset + " of the outbox in " + directory);
+            for (int i = offset; i < segment.capacity; i++) {
+                segment.buffer.put(i, (byte) 0);
+            }
+        }
+    }
+
+    private static boolean isValidAt(Segment segment, int offset) {
+        if (offset + HEADER_BYTES > segment.capacity) {
+            return false;
+        }
+        int length = segment.buffer.getInt(offset);
+        return length > 0
+                && length <= segment.capacity - offset - HEADER_BYTES
+                && segment.buffer.getInt(offset + 4) == checksum(segment.buffer, offset + HEADER_BYTES, length);
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer body = buffer.duplicate();
+        body.position(offset).limit(offset + length);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private Position readCheckpoint() throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT);
+        if (!Files.exists(checkpoint)) {
+            return null;
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(checkpoint));
+        return new Position(bytes.getLong(), bytes.getInt());
+    }
+
+    private List<Long> segmentIds() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> ids.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()))));
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%020d%s", id, SEGMENT_SUFFIX));
+    }
+
+    @Value
+    static class Position {
+        long segment;
+        int offset;
+
+        @Override
+        public String toString() {
+            return segment + ":" + offset;
+        }
+    }
+
+    @Value
+    static class Record {
+        String topicName;
+        PubsubMessage message;
+        /**
+         * Where this record starts, as returned when appending it.
+         */
+        Position start;
+        /**
+         * Where the next record starts, to commit once this one has been relayed.
+         */
+        Position end;
+    }
+
+    private static class Segment {
+        private final long id;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+        private int writeOffset;
+
+        private Segment(long id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.capacity = buffer.capacity();
+        }
+
+        static Segment open(long id, Path path, int minimumBytes) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = channel.size() > 0 ? channel.size() : minimumBytes;
+            return new Segment(id, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+}
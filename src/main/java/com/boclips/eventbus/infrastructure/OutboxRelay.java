@@ -0,0 +1,228 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.google.api.gax.rpc.ApiException;
+import com.google.pubsub.v1.PubsubMessage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Drains the outbox log to Pub/Sub in batches, one batch at a time and in log order. The log's position only moves
+ * on once every message of a batch has been acknowledged; a batch that fails is read and published again after a
+ * doubling delay, so every event is published at least once. Messages appended through the relay get a future that
+ * completes with their message id once they have been relayed.
+ * <p>
+ * A batch that is not acknowledged within the publish timeout is retried like a failed one. A record that Pub/Sub
+ * keeps rejecting for a reason retrying cannot fix, like a message over the size limit, is parked next to the log
+ * after {@code maxAttempts} attempts and relaying moves on past it, so that it cannot hold up the events behind it.
+ */
+class OutboxRelay {
+    private static final int MAX_BACKOFF_SHIFT = 6;
+
+    private final Logger logger = Logger.getLogger(OutboxRelay.class.getName());
+    private final OutboxLog log;
+    private final BiFunction<String, PubsubMessage, CompletableFuture<String>> publish;
+    private final Runnable flush;
+    private final int batchSize;
+    private final Duration interval;
+    private final Duration publishTimeout;
+    private final int maxAttempts;
+    private final ScheduledExecutorService scheduler;
+    private final Map<OutboxLog.Position, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+    private volatile boolean stopped;
+    private int failures;
+    private OutboxLog.Position failingRecord;
+    private int failingAttempts;
+
+    /**
+     * @param publish publishes a message to a topic, completing once the broker has acknowledged it
+     * @param flush   sends messages held back by publisher batching, once a whole batch has been handed over
+     */
+    OutboxRelay(OutboxLog log, BiFunction<String, PubsubMessage, CompletableFuture<String>> publish, Runnable flush, int batchSize, Duration interval, Duration publishTimeout, int maxAttempts, ScheduledExecutorService scheduler) {
+        this.log = log;
+        this.publish = publish;
+        this.flush = flush;
+        this.batchSize = batchSize;
+        this.interval = interval;
+        this.publishTimeout = publishTimeout;
+        this.maxAttempts = maxAttempts;
+        this.scheduler = scheduler;
+    }
+
+    void start() {
+        schedule(0);
+    }
+
+    /**
+     * Appends the message to the log, returning a future that completes with its message id once it has been relayed.
+     */
+    CompletableFuture<String> append(String topicName, PubsubMessage message) throws IOException {
+        CompletableFuture<String> messageId = new CompletableFuture<>();
+        // the log's lock keeps the record from being read, and relayed, before its future is in place
+        synchronized (log) {
+            pending.put(log.append(topicName, message), messageId);
+        }
+        return messageId;
+    }
+
+    /**
+     * Fails the futures of messages that have not been relayed. They stay in the log and are relayed after a restart,
+     * which their publishers can no longer learn about.
+     */
+    void abandonPending() {
+        pending.forEach((position, messageId) -> messageId.completeExceptionally(
+                new IllegalStateException("Outbox relay stopped before relaying the event at " + position + "; it is relayed after a restart")));
+        pending.clear();
+    }
+
+    /**
+     * Stops relaying once the batch in flight, if any, is done. Events left in the log are relayed after a restart.
+     */
+    void stop() {
+        stopped = true;
+    }
+
+    private void relay() {
+        if (stopped) {
+            return;
+        }
+        long delay;
+        try {
+            delay = relayBatch() ? 0 : interval.toMillis();
+            failures = 0;
+        } catch (Exception e) {
+            log.rewind();
+            delay = interval.toMillis() << Math.min(failures, MAX_BACKOFF_SHIFT);
+            failures++;
+            long retryDelay = delay;
+            logger.log(Level.WARNING, e, () -> "Failed relaying outbox, retrying in " + retryDelay + "ms");
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        schedule(delay);
+    }
+
+    /**
+     * Returns whether there was anything to relay.
+     */
+    private boolean relayBatch() throws Exception {
+        List<OutboxLog.Record> records = log.read(batchSize);
+        if (records.isEmpty()) {
+            return false;
+        }
+
+        List<CompletableFuture<String>> messageIds = new ArrayList<>(records.size());
+        for (OutboxLog.Record record : records) {
+            messageIds.add(publish(record));
+        }
+        flush.run();
+        try {
+            CompletableFuture.allOf(messageIds.toArray(new CompletableFuture[0])).get(publishTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new TimeoutException("Outbox batch was not acknowledged within " + publishTimeout);
+        } catch (ExecutionException e) {
+            // every message is done once all are, so the ones before the first failure have been acknowledged
+            int failed = 0;
+            while (!messageIds.get(failed).isCompletedExceptionally()) {
+                failed++;
+            }
+            Throwable failure = failureOf(messageIds.get(failed));
+            if (!givenUpOn(records.get(failed), failure)) {
+                throw e;
+            }
+            relayed(records.subList(0, failed), messageIds);
+            park(records.get(failed), failure);
+            log.rewind();
+            return true;
+        }
+        relayed(records, messageIds);
+        failingRecord = null;
+        return true;
+    }
+
+    private CompletableFuture<String> publish(OutboxLog.Record record) {
+        try {
+            return publish.apply(record.getTopicName(), record.getMessage());
+        } catch (RuntimeException e) {
+            CompletableFuture<String> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    private static Throwable failureOf(CompletableFuture<String> messageId) {
+        Throwable failure = messageId.handle((id, t) -> t).join();
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    /**
+     * Counts the consecutive failures of the record, returning true once it has failed {@code maxAttempts} times.
+     * Failures that Pub/Sub reports as retryable, e.g. while it is unavailable, do not count against the record.
+     */
+    private boolean givenUpOn(OutboxLog.Record record, Throwable failure) {
+        if (failure instanceof ApiException && ((ApiException) failure).isRetryable()) {
+            return false;
+        }
+        if (!record.getStart().equals(failingRecord)) {
+            failingRecord = record.getStart();
+            failingAttempts = 0;
+        }
+        return ++failingAttempts >= maxAttempts;
+    }
+
+    private void park(OutboxLog.Record record, Throwable failure) throws IOException {
+        Path file = log.park(record);
+        log.commit(record.getEnd());
+        failingRecord = null;
+        logger.log(Level.WARNING, failure, () -> String.format("Gave up relaying the event for %s at %s of the outbox after %d attempts, parked it in %s", record.getTopicName(), record.getStart(), maxAttempts, file));
+        CompletableFuture<String> parked = pending.remove(record.getStart());
+        if (parked != null) {
+            parked.completeExceptionally(new IllegalStateException("Gave up relaying the event after " + maxAttempts + " attempts, parked it in " + file, failure));
+        }
+    }
+
+    /**
+     * Commits the records, which have all been acknowledged, and completes their futures.
+     */
+    private void relayed(List<OutboxLog.Record> records, List<CompletableFuture<String>> messageIds) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        log.commit(records.get(records.size() - 1).getEnd());
+        for (int i = 0; i < records.size(); i++) {
+            CompletableFuture<String> relayed = pending.remove(records.get(i).getStart());
+            if (relayed != null) {
+                relayed.complete(messageIds.get(i).join());
+            }
+        }
+        logger.fine(() -> "Relayed " + records.size() + " events from the outbox");
+    }
+
+    private void schedule(long delay) {
+        if (stopped) {
+            return;
+        }
+        try {
+            scheduler.schedule(this::relay, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            logger.fine("Not relaying outbox while shutting down");
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.config.Compression;
+import com.boclips.eventbus.config.PayloadFormat;
+import com.boclips.eventbus.config.TopicProperties;
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.batching.BatchingSettings;
+import com.google.api.gax.batching.FlowControlSettings;
+import com.google.cloud.pubsub.v1.Publisher;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.protobuf.ByteString;
+import com.google.pubsub.v1.PubsubMessage;
+import com.google.pubsub.v1.TopicName;
+import org.threeten.bp.Duration;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Builds the Pub/Sub messages for encoded events of a topic, and the publishers they are sent with, according to the
+ * topic's properties.
+ */
+final class OutgoingMessages {
+
+    private OutgoingMessages() {
+    }
+
+    static Publisher.Builder publisher(TopicName topic, TopicProperties topicProperties) {
+        return Publisher
+                .newBuilder(topic)
+                .setBatchingSettings(batchingSettings(topicProperties))
+                .setEnableMessageOrdering(topicProperties.getMessageOrdering());
+    }
+
+    /**
+     * The entity id of the event when the topic uses message ordering, and {@code null} otherwise.
+     */
+    static String orderingKey(EventPropertyReader entityIds, Object event, TopicProperties topicProperties) {
+        return topicProperties.getMessageOrdering() ? entityIds.of(event) : null;
+    }
+
+    /**
+     * Completes the message with the payload, compressed when it is large enough, and its ordering key, if any.
+     */
+    static PubsubMessage message(PubsubMessage.Builder pubsubMessage, ByteString payload, PayloadFormat format, String orderingKey, TopicProperties topicProperties) {
+        if (format != PayloadFormat.JSON) {
+            pubsubMessage.putAttributes(MessageAttributes.CONTENT_TYPE, format.getContentType());
+        }
+        Compression compression = topicProperties.getCompression();
+        if (compression != Compression.NONE && payload.size() >= topicProperties.getCompressionThreshold()) {
+            payload = PayloadCompression.compress(payload, compression);
+            pubsubMessage.putAttributes(MessageAttributes.CONTENT_ENCODING, compression.getContentEncoding());
+        }
+        pubsubMessage.setData(payload);
+        if (orderingKey != null) {
+            pubsubMessage.setOrderingKey(orderingKey);
+        }
+        return pubsubMessage.build();
+    }
+
+    static CompletableFuture<String> send(Publisher publisher, PubsubMessage message) {
+        ApiFuture<String> messageId = publisher.publish(message);
+        if (!message.getOrderingKey().isEmpty()) {
+            resumePublishingOnFailure(publisher, message.getOrderingKey(), messageId);
+        }
+        return toCompletableFuture(messageId);
+    }
+
+    private static BatchingSettings batchingSettings(TopicProperties topicProperties) {
+        return BatchingSettings.newBuilder()
+                .setElementCountThreshold(topicProperties.getBatchElementCountThreshold())
+                .setRequestByteThreshold(topicProperties.getBatchRequestByteThreshold())
+                .setDelayThreshold(Duration.ofMillis(topicProperties.getBatchDelayThreshold().toMillis()))
+                .setFlowControlSettings(FlowControlSettings.newBuilder()
+                        .setMaxOutstandingElementCount(topicProperties.getPublisherMaxOutstandingElementCount())
+                        .setMaxOutstandingRequestBytes(topicProperties.getPublisherMaxOutstandingRequestBytes())
+                        .setLimitExceededBehavior(topicProperties.getPublisherLimitExceededBehavior())
+                        .build())
+                .build();
+    }
+
+    /**
+     * A failed publish pauses its ordering key so that later events for the entity cannot overtake it; the caller
+     * sees the failure through the returned future, and publishing for the key resumes with the next event.
+     */
+    private static void resumePublishingOnFailure(Publisher publisher, String orderingKey, ApiFuture<String> messageId) {
+        ApiFutures.addCallback(messageId, new ApiFutureCallback<String>() {
+            @Override
+            public void onFailure(Throwable t) {
+                publisher.resumePublish(orderingKey);
+            }
+
+            @Override
+            public void onSuccess(String id) {
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    private static CompletableFuture<String> toCompletableFuture(ApiFuture<String> messageId) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        ApiFutures.addCallback(messageId, new ApiFutureCallback<String>() {
+            @Override
+            public void onFailure(Throwable t) {
+                result.completeExceptionally(t);
+            }
+
+            @Override
+            public void onSuccess(String id) {
+                result.complete(id);
+            }
+        }, MoreExecutors.directExecutor());
+        return result;
+    }
+}
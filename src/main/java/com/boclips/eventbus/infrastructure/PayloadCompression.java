@@ -0,0 +1,84 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.config.Compression;
+import com.google.cloud.pubsub.v1.AckReplyConsumer;
+import com.google.cloud.pubsub.v1.MessageReceiver;
+import com.google.protobuf.ByteString;
+import com.google.pubsub.v1.PubsubMessage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses published payloads and decompresses received ones according to their {@code contentEncoding}
+ * attribute, so that consumers decode compressed and uncompressed messages alike.
+ */
+final class PayloadCompression {
+    private static final Logger logger = Logger.getLogger(PayloadCompression.class.getName());
+
+    private PayloadCompression() {
+    }
+
+    static ByteString compress(ByteString payload, Compression compression) {
+        switch (compression) {
+            case NONE:
+                return payload;
+            case GZIP:
+                ByteString.Output compressed = ByteString.newOutput(Math.max(256, payload.size() / 4));
+                try (OutputStream gzip = new GZIPOutputStream(compressed)) {
+                    payload.writeTo(gzip);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed compressing payload", e);
+                }
+                return compressed.toByteString();
+            default:
+                throw new IllegalArgumentException("Unknown compression " + compression);
+        }
+    }
+
+    static ByteString decompress(ByteString payload, String contentEncoding) {
+        if (contentEncoding == null || contentEncoding.equals(Compression.NONE.getContentEncoding())) {
+            return payload;
+        }
+        if (!contentEncoding.equals(Compression.GZIP.getContentEncoding())) {
+            throw new IllegalArgumentException("Unknown content encoding " + contentEncoding);
+        }
+        try (InputStream gzip = new GZIPInputStream(payload.newInput())) {
+            return ByteString.readFrom(gzip);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed decompressing payload", e);
+        }
+    }
+
+    /**
+     * Hands messages to the receiver with their payload decompressed. Messages that cannot be decompressed are
+     * passed on as they are, and fail to decode there like any other corrupt message.
+     */
+    static MessageReceiver decompressing(MessageReceiver receiver) {
+        return (PubsubMessage message, AckReplyConsumer consumer) -> {
+            String contentEncoding = message.getAttributesOrDefault(MessageAttributes.CONTENT_ENCODING, null);
+            if (contentEncoding == null || contentEncoding.equals(Compression.NONE.getContentEncoding())) {
+                receiver.receiveMessage(message, consumer);
+                return;
+            }
+
+            PubsubMessage decompressed;
+            try {
+                decompressed = message.toBuilder()
+                        .setData(decompress(message.getData(), contentEncoding))
+                        .removeAttributes(MessageAttributes.CONTENT_ENCODING)
+                        .build();
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, e, () -> "Could not decompress message " + message.getMessageId());
+                decompressed = message;
+            }
+            receiver.receiveMessage(decompressed, consumer);
+        };
+    }
+}
@@ -0,0 +1,241 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.config.TopicProperties;
+import com.google.api.gax.rpc.AlreadyExistsException;
+import com.google.api.gax.rpc.NotFoundException;
+import com.google.api.gax.rpc.PermissionDeniedException;
+import com.google.cloud.pubsub.v1.SubscriptionAdminClient;
+import com.google.cloud.pubsub.v1.SubscriptionAdminSettings;
+import com.google.cloud.pubsub.v1.TopicAdminClient;
+import com.google.cloud.pubsub.v1.TopicAdminSettings;
+import com.google.protobuf.FieldMask;
+import com.google.pubsub.v1.DeadLetterPolicy;
+import com.google.pubsub.v1.ProjectSubscriptionName;
+import com.google.pubsub.v1.RetryPolicy;
+import com.google.pubsub.v1.Subscription;
+import com.google.pubsub.v1.TopicName;
+import com.google.pubsub.v1.UpdateSubscriptionRequest;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Creates topics and subscriptions on demand through one long-lived pair of admin clients, remembering which
+ * topics are known to exist so that they are only looked up once per process. Subscriptions are kept in line with
+ * the redelivery backoff and dead-letter policy, where configured; policies that are not configured are left as they
+ * are, so that ones set up outside the library survive.
+ */
+class PubSubAdmin implements AutoCloseable {
+    private final Logger logger = Logger.getLogger(PubSubAdmin.class.getName());
+    private final String projectId;
+    private final Set<String> verifiedTopics = ConcurrentHashMap.newKeySet();
+    private volatile TopicAdminClient topicAdminClient;
+    private volatile SubscriptionAdminClient subscriptionAdminClient;
+
+    PubSubAdmin(String projectId) {
+        this.projectId = projectId;
+    }
+
+    TopicName createTopicIfDoesNotExist(String topicId) throws IOException {
+        TopicName topicName = TopicName.of(projectId, topicId);
+        if (verifiedTopics.contains(topicId)) {
+            return topicName;
+        }
+
+        TopicAdminClient topicAdmin = topicAdminClient();
+        if (topicDoesNotExist(topicAdmin, topicName)) {
+            try {
+                topicAdmin.createTopic(topicName);
+                logger.info(String.format("Created topic %s", topicName));
+            } catch (AlreadyExistsException e) {
+                logger.fine("Topic " + topicName + " was created concurrently");
+            }
+        }
+        verifiedTopics.add(topicId);
+        return topicName;
+    }
+
+    /**
+     * Returns the subscription as it is in Pub/Sub afterwards, including policies set up outside the library.
+     */
+    Subscription createSubscriptionIfDoesNotExist(ProjectSubscriptionName subscriptionName, String topicId, TopicProperties topicProperties, AttributeFilter filter) throws IOException {
+        TopicName topicName = createTopicIfDoesNotExist(topicId);
+        TopicName deadLetterTopicName = topicProperties.getMaxDeliveryAttempts() != null
+                ? createTopicIfDoesNotExist(deadLetterTopicId(subscriptionName))
+                : null;
+
+        SubscriptionAdminClient subscriptionAdmin = subscriptionAdminClient();
+        if (deadLetterTopicName != null) {
+            createDeadLetterSubscriptionIfDoesNotExist(subscriptionAdmin, subscriptionName, deadLetterTopicName);
+        }
+
+        Subscription existing = findSubscription(subscriptionAdmin, subscriptionName);
+        if (existing != null) {
+            if (existing.getEnableMessageOrdering() != topicProperties.getMessageOrdering()) {
+                logger.warning(String.format("Subscription %s %s message ordering; it has to be recreated to change that", subscriptionName, existing.getEnableMessageOrdering() ? "has" : "does not have"));
+            }
+            if (!existing.getFilter().equals(filter.toSubscriptionFilter())) {
+                logger.warning(String.format("Subscription %s has filter '%s'; it has to be recreated to change that, until then messages are filtered on receipt", subscriptionName, existing.getFilter()));
+            }
+            return updateFailurePoliciesIfChanged(subscriptionAdmin, existing, subscription(subscriptionName, topicName, deadLetterTopicName, topicProperties, filter));
+        }
+
+        try {
+            return createSubscription(subscriptionAdmin, subscription(subscriptionName, topicName, deadLetterTopicName, topicProperties, filter));
+        } catch (NotFoundException e) {
+            logger.info(String.format("Topic %s disappeared, creating it again", topicName));
+            verifiedTopics.remove(topicId);
+            return createSubscription(subscriptionAdmin, subscription(subscriptionName, createTopicIfDoesNotExist(topicId), deadLetterTopicName, topicProperties, filter));
+        }
+    }
+
+    static String deadLetterTopicId(ProjectSubscriptionName subscriptionName) {
+        return subscriptionName.getSubscription() + ".dead-letter";
+    }
+
+    /**
+     * The subscription retaining dead-lettered messages until they are replayed. It is named after its topic.
+     */
+    static ProjectSubscriptionName deadLetterSubscriptionName(ProjectSubscriptionName subscriptionName) {
+        return ProjectSubscriptionName.of(subscriptionName.getProject(), deadLetterTopicId(subscriptionName));
+    }
+
+    private void createDeadLetterSubscriptionIfDoesNotExist(SubscriptionAdminClient subscriptionAdmin, ProjectSubscriptionName subscriptionName, TopicName deadLetterTopicName) {
+        ProjectSubscriptionName deadLetterSubscriptionName = deadLetterSubscriptionName(subscriptionName);
+        if (findSubscription(subscriptionAdmin, deadLetterSubscriptionName) == null) {
+            createSubscription(subscriptionAdmin, Subscription.newBuilder()
+                    .setName(deadLetterSubscriptionName.toString())
+                    .setTopic(deadLetterTopicName.toString())
+                    .build());
+        }
+    }
+
+    static Subscription subscription(ProjectSubscriptionName subscriptionName, TopicName topicName, TopicName deadLetterTopicName, TopicProperties topicProperties, AttributeFilter filter) {
+        Subscription.Builder subscription = Subscription.newBuilder()
+                .setName(subscriptionName.toString())
+                .setTopic(topicName.toString())
+                .setEnableMessageOrdering(topicProperties.getMessageOrdering())
+                .setFilter(filter.toSubscriptionFilter());
+        if (topicProperties.getMinimumRedeliveryBackoff() != null || topicProperties.getMaximumRedeliveryBackoff() != null) {
+            RetryPolicy.Builder retryPolicy = RetryPolicy.newBuilder();
+            if (topicProperties.getMinimumRedeliveryBackoff() != null) {
+                retryPolicy.setMinimumBackoff(protobufDuration(topicProperties.getMinimumRedeliveryBackoff()));
+            }
+            if (topicProperties.getMaximumRedeliveryBackoff() != null) {
+                retryPolicy.setMaximumBackoff(protobufDuration(topicProperties.getMaximumRedeliveryBackoff()));
+            }
+            subscription.setRetryPolicy(retryPolicy);
+        }
+        if (deadLetterTopicName != null) {
+            subscription.setDeadLetterPolicy(DeadLetterPolicy.newBuilder()
+                    .setDeadLetterTopic(deadLetterTopicName.toString())
+                    .setMaxDeliveryAttempts(topicProperties.getMaxDeliveryAttempts())
+                    .build());
+        }
+        return subscription.build();
+    }
+
+    private static com.google.protobuf.Duration protobufDuration(java.time.Duration duration) {
+        return com.google.protobuf.Duration.newBuilder()
+                .setSeconds(duration.getSeconds())
+                .setNanos(duration.getNano())
+                .build();
+    }
+
+    private Subscription createSubscription(SubscriptionAdminClient subscriptionAdmin, Subscription subscription) {
+        try {
+            Subscription created = subscriptionAdmin.createSubscription(subscription);
+            logger.info(String.format("Created subscription %s", created.getName()));
+            return created;
+        } catch (AlreadyExistsException e) {
+            logger.fine("Subscription " + subscription.getName() + " was created concurrently");
+            Subscription existing = findSubscription(subscriptionAdmin, ProjectSubscriptionName.parse(subscription.getName()));
+            return existing != null ? existing : subscription;
+        }
+    }
+
+    /**
+     * Updates only the policies that are configured and differ, and carries on with the subscription as it is when
+     * the service may not update subscriptions. Returns the subscription as it is afterwards.
+     */
+    Subscription updateFailurePoliciesIfChanged(SubscriptionAdminClient subscriptionAdmin, Subscription existing, Subscription wanted) {
+        FieldMask.Builder updateMask = FieldMask.newBuilder();
+        if (wanted.hasRetryPolicy() && !existing.getRetryPolicy().equals(wanted.getRetryPolicy())) {
+            updateMask.addPaths("retry_policy");
+        }
+        if (wanted.hasDeadLetterPolicy() && !existing.getDeadLetterPolicy().equals(wanted.getDeadLetterPolicy())) {
+            updateMask.addPaths("dead_letter_policy");
+        }
+        if (updateMask.getPathsCount() == 0) {
+            return existing;
+        }
+        try {
+            Subscription updated = subscriptionAdmin.updateSubscription(UpdateSubscriptionRequest.newBuilder()
+                    .setSubscription(wanted)
+                    .setUpdateMask(updateMask)
+                    .build());
+            logger.info(String.format("Updated %s of subscription %s", updateMask.getPathsList(), wanted.getName()));
+            return updated;
+        } catch (PermissionDeniedException e) {
+            logger.log(Level.WARNING, e, () -> String.format("Not allowed to update %s of subscription %s, keeping them as they are", updateMask.getPathsList(), wanted.getName()));
+            return existing;
+        }
+    }
+
+    private boolean topicDoesNotExist(TopicAdminClient topicAdminClient, TopicName topicName) {
+        try {
+            logger.fine("Checking if topic " + topicName + " exists");
+            topicAdminClient.getTopic(topicName);
+            return false;
+        } catch (NotFoundException e) {
+            return true;
+        }
+    }
+
+    private Subscription findSubscription(SubscriptionAdminClient subscriptionAdminClient, ProjectSubscriptionName subscriptionName) {
+        try {
+            return subscriptionAdminClient.getSubscription(subscriptionName);
+        } catch (NotFoundException e) {
+            return null;
+        }
+    }
+
+    private TopicAdminClient topicAdminClient() throws IOException {
+        if (topicAdminClient == null) {
+            synchronized (this) {
+                if (topicAdminClient == null) {
+                    topicAdminClient = TopicAdminClient.create(TopicAdminSettings.newBuilder().build());
+                }
+            }
+        }
+        return topicAdminClient;
+    }
+
+    private SubscriptionAdminClient subscriptionAdminClient() throws IOException {
+        if (subscriptionAdminClient == null) {
+            synchronized (this) {
+                if (subscriptionAdminClient == null) {
+                    subscriptionAdminClient = SubscriptionAdminClient.create(SubscriptionAdminSettings.newBuilder().build());
+                }
+            }
+        }
+        return subscriptionAdminClient;
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (topicAdminClient != null) {
+                topicAdminClient.close();
+            }
+            if (subscriptionAdminClient != null) {
+                subscriptionAdminClient.close();
+            }
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, e, () -> "Error closing Pub/Sub admin clients");
+        }
+    }
+}
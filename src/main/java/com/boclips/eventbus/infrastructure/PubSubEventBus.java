@@ -1,28 +1,48 @@
 package com.boclips.eventbus.infrastructure;
 
+import com.boclips.eventbus.BatchEventHandler;
+import com.boclips.eventbus.BlobStore;
 import com.boclips.eventbus.ConflictingSubscriberException;
 import com.boclips.eventbus.EventBus;
+import com.boclips.eventbus.EventElementsHandler;
 import com.boclips.eventbus.EventHandler;
 import com.boclips.eventbus.config.BoclipsEventsProperties;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.api.gax.batching.BatchingSettings;
+import com.boclips.eventbus.config.EventConfigurationExtractor;
+import com.boclips.eventbus.config.InvalidMessagingConfiguration;
+import com.boclips.eventbus.config.OutboxProperties;
+import com.boclips.eventbus.config.PayloadFormat;
+import com.boclips.eventbus.config.TopicProperties;
 import com.google.api.gax.batching.FlowControlSettings;
-import com.google.api.gax.core.ExecutorProvider;
-import com.google.api.gax.core.InstantiatingExecutorProvider;
-import com.google.api.gax.rpc.NotFoundException;
+import com.google.api.gax.core.FixedExecutorProvider;
 import com.google.cloud.pubsub.v1.*;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.protobuf.ByteString;
 import com.google.pubsub.v1.*;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
-import org.threeten.bp.Duration;
 
 import javax.annotation.PreDestroy;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -32,32 +52,77 @@ public class PubSubEventBus extends AbstractEventBus {
     private final Logger logger = Logger.getLogger(PubSubEventBus.class.getName());
     private final String projectId;
     private final String consumerGroup;
-    private final ObjectMapper objectMapper;
-    private final Map<String, Subscriber> subscriberByTopic = new HashMap<>();
-    private final Map<String, Publisher> publisherByTopic = new HashMap<>();
-
-    private final ExecutorProvider executorProvider = InstantiatingExecutorProvider.newBuilder()
-            .setExecutorThreadCount(1)
-            .setThreadFactory(threadFactory("PubSub-executor"))
-            .build();
-
-    private final FlowControlSettings flowControlSettings = FlowControlSettings.newBuilder()
-            .setMaxOutstandingElementCount(10L)
-            .setMaxOutstandingRequestBytes(1024L * 1024L) // 1MB
-            .build();
-
-    private final BatchingSettings publisherBatchingSettings = BatchingSettings.newBuilder()
-            .setElementCountThreshold(200L)
-            .setRequestByteThreshold(10000L)
-            .setDelayThreshold(Duration.ofSeconds(1))
-            .build();
+    private final MessageCodec codec;
+    private final BlobStore blobStore;
+    private final Map<String, Subscriber> subscriberByTopic = new ConcurrentHashMap<>();
+    private final Map<String, MessageReceiver> receiverByTopic = new ConcurrentHashMap<>();
+    private final Map<String, ScheduledExecutorService> dedicatedExecutorByTopic = new ConcurrentHashMap<>();
+    private final PublisherRegistry publishers = new PublisherRegistry(this::createPublisher);
+    private final EventPropertyReader entityIds = EventPropertyReader.entityId();
+    private final EventConfigurationExtractor eventConfigurationExtractor = new EventConfigurationExtractor();
+    private final MessageAttributes messageAttributes;
+    private final Map<String, TopicProperties> publishPropertiesByTopic = new ConcurrentHashMap<>();
+
+    private final BoclipsEventsProperties properties;
+    private final PubSubAdmin admin;
+    private final DeadLetterReplayer deadLetterReplayer = new DeadLetterReplayer();
+    private final ScheduledExecutorService scheduler;
+    private final ScheduledExecutorService sharedExecutor;
+    private final OutboxLog outbox;
+    private final OutboxRelay outboxRelay;
+    private final ScheduledExecutorService outboxExecutor;
 
     public PubSubEventBus(BoclipsEventsProperties properties) {
+        this(properties, null);
+    }
+
+    /**
+     * @param blobStore where claim-checked events are kept, see {@link TopicProperties#getClaimCheckThreshold()}
+     */
+    @Autowired
+    public PubSubEventBus(BoclipsEventsProperties properties, @Nullable BlobStore blobStore) {
         validateConfig(properties);
 
-        this.objectMapper = ObjectMapperProvider.get();
+        this.codec = new MessageCodec(properties.isTunedSerialisation());
+        this.blobStore = blobStore;
+        this.properties = properties;
         this.projectId = properties.getProject();
         this.consumerGroup = properties.getConsumerGroup();
+        this.messageAttributes = new MessageAttributes(consumerGroup);
+        this.admin = new PubSubAdmin(projectId);
+        this.scheduler = Executors.newScheduledThreadPool(
+                Math.max(1, Runtime.getRuntime().availableProcessors()),
+                threadFactory("PubSub-scheduler")
+        );
+        this.sharedExecutor = Executors.newScheduledThreadPool(
+                properties.getDefaults().getExecutorThreadCount(),
+                threadFactory("PubSub-executor")
+        );
+
+        OutboxProperties outboxProperties = properties.getOutbox();
+        if (outboxProperties.getDirectory() == null) {
+            this.outbox = null;
+            this.outboxRelay = null;
+            this.outboxExecutor = null;
+        } else {
+            try {
+                this.outbox = new OutboxLog(Paths.get(outboxProperties.getDirectory()), outboxProperties.getSegmentBytes(), outboxProperties.isSyncOnAppend());
+            } catch (IOException e) {
+                throw new IllegalStateException(String.format("Failed to open outbox in %s", outboxProperties.getDirectory()), e);
+            }
+            this.outboxExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory("PubSub-outbox"));
+            this.outboxRelay = new OutboxRelay(
+                    outbox,
+                    (topicName, message) -> OutgoingMessages.send(publishers.get(topicName), message),
+                    () -> publishers.forEachCreated((topicName, publisher) -> publisher.publishAllOutstanding()),
+                    outboxProperties.getRelayBatchSize(),
+                    outboxProperties.getRelayInterval(),
+                    outboxProperties.getPublishTimeout(),
+                    outboxProperties.getMaxRelayAttempts(),
+                    outboxExecutor
+            );
+            outboxRelay.start();
+        }
     }
 
     private static ThreadFactory threadFactory(String name) {
@@ -68,98 +133,347 @@ public class PubSubEventBus extends AbstractEventBus {
     }
 
     @Override
-    public <T> void doSubscribe(String topicName, Class<T> eventType, EventHandler<? super T> eventHandler) {
-        subscriberByTopic.computeIfPresent(topicName, (cls, subscriber) -> {
-            throw new ConflictingSubscriberException("There already is a subscription for " + eventType.getSimpleName());
-        });
+    public <T> void doSubscribe(String topicName, Class<T> eventType, Set<String> subtypes, EventHandler<? super T> eventHandler) {
+        codec.register(eventType);
+        TopicProperties topicProperties = properties.forTopic(topicName);
+        ScheduledExecutorService executor = executorFor(topicName, topicProperties);
+        Function<Boolean, MessageReceiver> receiver = deadLettering -> new RetryingReceiver<>(
+                subscriptionName(topicName).toString(),
+                eventType,
+                codec,
+                eventHandler,
+                topicProperties.getHandlerRetries(),
+                topicProperties.getHandlerRetryDelay(),
+                deadLettering,
+                executor,
+                scheduler,
+                topicProperties.getOrderedByEntityId() ? entityIds : null,
+                lanesFor(eventType, topicProperties),
+                permitsFor(topicProperties)
+        );
+
+        startSubscriber(topicName, eventType, subtypes, receiver, topicProperties, executor, subscriberFlowControlSettings(topicProperties));
+    }
+
+    @Override
+    protected <T> void doSubscribeBatch(String topicName, Class<T> eventType, Set<String> subtypes, BatchEventHandler<T> batchEventHandler) {
+        codec.register(eventType);
+        TopicProperties topicProperties = properties.forTopic(topicName);
+        ScheduledExecutorService executor = executorFor(topicName, topicProperties);
+        Function<Boolean, MessageReceiver> receiver = deadLettering -> new BatchingReceiver<>(
+                subscriptionName(topicName).toString(),
+                eventType,
+                codec,
+                batchEventHandler,
+                topicProperties.getListenerBatchSize(),
+                topicProperties.getListenerBatchWindow(),
+                topicProperties.getHandlerRetries(),
+                topicProperties.getHandlerRetryDelay(),
+                deadLettering,
+                executor,
+                scheduler
+        );
+
+        FlowControlSettings flowControlSettings = subscriberFlowControlSettings(topicProperties);
+        if (flowControlSettings.getMaxOutstandingElementCount() < topicProperties.getListenerBatchSize()) {
+            flowControlSettings = flowControlSettings.toBuilder()
+                    .setMaxOutstandingElementCount(topicProperties.getListenerBatchSize().longValue())
+                    .build();
+        }
+        startSubscriber(topicName, eventType, subtypes, receiver, topicProperties, executor, flowControlSettings);
+    }
 
-        ProjectSubscriptionName subscriptionName = ProjectSubscriptionName.of(projectId, topicName + "." + consumerGroup);
+    /**
+     * Elements are only parsed as the handler iterates over them, so an undecodable event fails in the handler and is
+     * retried like any failing event. Streamed events are not ordered by entity id, which is not known without decoding
+     * the whole event.
+     */
+    @Override
+    protected <E> void doSubscribeElements(String topicName, Class<?> eventType, String property, Class<E> elementType, EventElementsHandler<E> eventElementsHandler) {
+        codec.register(elementType);
+        TopicProperties topicProperties = properties.forTopic(topicName);
+        ScheduledExecutorService executor = executorFor(topicName, topicProperties);
+        Function<Boolean, MessageReceiver> receiver = deadLettering -> new RetryingReceiver<Iterable<E>>(
+                subscriptionName(topicName).toString(),
+                message -> codec.decodeElements(property, elementType, message),
+                elements -> eventElementsHandler.handle(elements.iterator()),
+                topicProperties.getHandlerRetries(),
+                topicProperties.getHandlerRetryDelay(),
+                deadLettering,
+                executor,
+                scheduler,
+                null,
+                null,
+                permitsFor(topicProperties)
+        );
+
+        startSubscriber(topicName, eventType, Collections.emptySet(), receiver, topicProperties, executor, subscriberFlowControlSettings(topicProperties));
+    }
+
+    private StripedExecutor lanesFor(Class<?> eventType, TopicProperties topicProperties) {
+        if (topicProperties.getOrderedByEntityId()) {
+            entityIds.register(eventType);
+            return new StripedExecutor(topicProperties.getHandlerConcurrency() != null
+                    ? topicProperties.getHandlerConcurrency()
+                    : topicProperties.getExecutorThreadCount());
+        }
+        return null;
+    }
+
+    /**
+     * Lanes already cap how many events of an ordered topic are handled at once. Otherwise the cap is a plain count
+     * of events being handled, so that no event ever waits behind another one that happens to be slow or retrying.
+     */
+    private static Semaphore permitsFor(TopicProperties topicProperties) {
+        return topicProperties.getHandlerConcurrency() != null && !topicProperties.getOrderedByEntityId()
+                ? new Semaphore(topicProperties.getHandlerConcurrency())
+                : null;
+    }
+
+    private ProjectSubscriptionName subscriptionName(String topicName) {
+        return ProjectSubscriptionName.of(projectId, topicName + "." + consumerGroup);
+    }
+
+    /**
+     * Creates the subscription before building its receiver, so that undecodable messages are only left to
+     * dead-lettering when the subscription actually has a dead-letter policy, however it was set up.
+     */
+    private void startSubscriber(String topicName, Class<?> eventType, Set<String> subtypes, Function<Boolean, MessageReceiver> receiverFactory, TopicProperties topicProperties, ScheduledExecutorService executor, FlowControlSettings flowControlSettings) {
+        ProjectSubscriptionName subscriptionName = subscriptionName(topicName);
+        Map<String, List<String>> allowedAttributes = new HashMap<>(topicProperties.getAttributeFilter());
+        if (!subtypes.isEmpty()) {
+            allowedAttributes.put(MessageAttributes.SUBTYPE, new ArrayList<>(subtypes));
+        }
+        AttributeFilter filter = new AttributeFilter(allowedAttributes);
+        if (subscriberByTopic.containsKey(topicName)) {
+            releaseExecutor(executor);
+            throw new ConflictingSubscriberException("There already is a subscription for " + eventType.getSimpleName());
+        }
 
+        Subscription subscription;
         try {
-            createSubscription(subscriptionName, topicName);
-        } catch (IOException e) {
+            subscription = admin.createSubscriptionIfDoesNotExist(subscriptionName, topicName, topicProperties, filter);
+        } catch (IOException | RuntimeException e) {
+            releaseExecutor(executor);
             throw new RuntimeException("Could not create subscription", e);
         }
 
-        MessageReceiver receiver =
-                (message, consumer) -> {
-                    T payload = null;
-                    try {
-                        payload = objectMapper.readValue(message.getData().toStringUtf8(), eventType);
-                        eventHandler.handle(payload);
-                    } catch (Exception e) {
-                        logger.warning("Error handling message from " + subscriptionName.toString() + ": " + e.getMessage());
-                        e.printStackTrace();
-                    } finally {
-                        String payloadMessage = payload != null ? payload.toString() : "";
-                        logger.info("Ack'ing message for " + subscriptionName.toString() + "with payload: " + payloadMessage);
-                        consumer.ack();
-                    }
-                };
-
+        MessageReceiver receiver = receiverFactory.apply(subscription.hasDeadLetterPolicy());
+        String elementsProperty = eventConfigurationExtractor.getChunkableElementsProperty(eventType);
+        if (topicProperties.getReassembleChunks() && !elementsProperty.isEmpty()) {
+            receiver = new ChunkAssembler(receiver, codec, elementsProperty, topicProperties.getChunkReassemblyTimeout(), executor, scheduler);
+            flowControlSettings = withRoomForChunks(topicName, flowControlSettings, topicProperties);
+        }
+        if (topicProperties.getResolveClaimChecks()) {
+            receiver = new ClaimCheckResolver(receiver, blobStore);
+        }
+        MessageReceiver filteringReceiver = filter.applyTo(PayloadCompression.decompressing(receiver));
         Subscriber subscriber = Subscriber
-                .newBuilder(subscriptionName, receiver)
-                .setExecutorProvider(executorProvider)
-                .setParallelPullCount(1)
+                .newBuilder(subscriptionName, filteringReceiver)
+                .setExecutorProvider(FixedExecutorProvider.create(executor))
+                .setParallelPullCount(topicProperties.getParallelPullCount())
                 .setFlowControlSettings(flowControlSettings)
                 .build();
 
-        subscriberByTopic.put(topicName, subscriber);
+        if (subscriberByTopic.putIfAbsent(topicName, subscriber) != null) {
+            releaseExecutor(executor);
+            throw new ConflictingSubscriberException("There already is a subscription for " + eventType.getSimpleName());
+        }
+        if (executor != sharedExecutor) {
+            dedicatedExecutorByTopic.put(topicName, executor);
+        }
 
+        receiverByTopic.put(topicName, filteringReceiver);
         subscriber.startAsync().awaitRunning();
         logger.info(String.format("Subscribed to %s", topicName));
     }
 
+    /**
+     * The executor the subscription's messages are handled on. In-process retries and batch flushes are handed back
+     * to it once the scheduler's timer fires, so that they never run alongside the subscription's other messages
+     * beyond its thread count, nor hold up the scheduler.
+     */
+    private ScheduledExecutorService executorFor(String topicName, TopicProperties topicProperties) {
+        if (!topicProperties.getDedicatedExecutor()) {
+            return sharedExecutor;
+        }
+        return Executors.newScheduledThreadPool(topicProperties.getExecutorThreadCount(), threadFactory("PubSub-executor-" + topicName));
+    }
+
+    private void releaseExecutor(ScheduledExecutorService executor) {
+        if (executor != sharedExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Chunks are held unacknowledged until all of them have arrived, so flow control has to let a whole event's worth
+     * of chunks be outstanding, or they would never all arrive.
+     */
+    private static FlowControlSettings withRoomForChunks(String topicName, FlowControlSettings flowControlSettings, TopicProperties topicProperties) {
+        if (topicProperties.getMaxChunkBytes() == null) {
+            throw new InvalidMessagingConfiguration(String.format("Reassembling chunks of %s needs max-chunk-bytes, to make room for them in flow control", topicName));
+        }
+        long chunks = topicProperties.getMaxReassembledChunks();
+        return flowControlSettings.toBuilder()
+                .setMaxOutstandingElementCount(Math.max(flowControlSettings.getMaxOutstandingElementCount(), chunks))
+                .setMaxOutstandingRequestBytes(Math.max(flowControlSettings.getMaxOutstandingRequestBytes(), chunks * topicProperties.getMaxChunkBytes()))
+                .build();
+    }
+
+    private static FlowControlSettings subscriberFlowControlSettings(TopicProperties topicProperties) {
+        return FlowControlSettings.newBuilder()
+                .setMaxOutstandingElementCount(topicProperties.getMaxOutstandingElementCount())
+                .setMaxOutstandingRequestBytes(topicProperties.getMaxOutstandingRequestBytes())
+                .build();
+    }
+
     @Override
-    protected void doPublish(Iterable<?> events, String topicName) {
-        logger.fine("Obtaining publisher for " + topicName);
-        Publisher publisher = getPublisherFor(topicName);
-        logger.fine("Obtained publisher for " + topicName);
-        try {
-            for (Object event : events) {
-                logger.fine("Serializing event...");
-                byte[] eventBytes = objectMapper.writeValueAsBytes(event);
-                ByteString eventByteString = ByteString.copyFrom(eventBytes);
-                PubsubMessage pubsubMessage = PubsubMessage.newBuilder().setData(eventByteString).build();
-                logger.fine("Serialized event. Publishing...");
-                publisher.publish(pubsubMessage);
-                logger.fine("Published");
+    protected CompletableFuture<List<String>> doPublish(Iterable<?> events, String topicName) {
+        Publisher publisher = null;
+        if (outbox == null) {
+            logger.fine("Obtaining publisher for " + topicName);
+            publisher = publishers.get(topicName);
+            logger.fine("Obtained publisher for " + topicName);
+        }
+        TopicProperties topicProperties = publishPropertiesByTopic.computeIfAbsent(topicName, properties::forTopic);
+        List<CompletableFuture<String>> messageIds = new ArrayList<>();
+        for (Object event : events) {
+            logger.fine("Serializing event...");
+            PayloadFormat format = topicProperties.getPayloadFormat();
+            List<ByteString> payloads = encodeChunks(event, format, topicProperties);
+            Map<String, String> attributes = messageAttributes.of(event);
+            if (payloads.size() == 1 && isClaimChecked(event, payloads.get(0), topicProperties)) {
+                attributes = new HashMap<>(attributes);
+                attributes.put(MessageAttributes.CLAIM_CHECK, checkIn(topicName, payloads.get(0)));
+                payloads = Collections.singletonList(codec.encodeWithout(event, format, eventConfigurationExtractor.getLargeProperties(event.getClass())));
+            }
+            String chunkId = payloads.size() > 1 ? UUID.randomUUID().toString() : null;
+            String orderingKey = OutgoingMessages.orderingKey(entityIds, event, topicProperties);
+            logger.fine("Serialized event. Publishing...");
+            List<CompletableFuture<String>> chunkMessageIds = new ArrayList<>(payloads.size());
+            for (int i = 0; i < payloads.size(); i++) {
+                PubsubMessage.Builder pubsubMessage = PubsubMessage.newBuilder()
+                        .putAllAttributes(attributes);
+                if (chunkId != null) {
+                    pubsubMessage.putAttributes(MessageAttributes.CHUNK_ID, chunkId);
+                    pubsubMessage.putAttributes(MessageAttributes.CHUNK_INDEX, String.valueOf(i));
+                    pubsubMessage.putAttributes(MessageAttributes.CHUNK_COUNT, String.valueOf(payloads.size()));
+                }
+                chunkMessageIds.add(publishMessage(topicName, publisher, pubsubMessage, payloads.get(i), format, orderingKey, topicProperties));
             }
+            messageIds.add(chunkMessageIds.size() == 1
+                    ? chunkMessageIds.get(0)
+                    : allMessageIds(chunkMessageIds).thenApply(ids -> ids.get(0)));
+            logger.fine("Published");
+        }
+        logger.fine("Done publishing batch");
+        return allMessageIds(messageIds);
+    }
 
+    /**
+     * Splits chunkable events when chunking is enabled for the topic, see {@link TopicProperties#getMaxChunkBytes()}.
+     */
+    private List<ByteString> encodeChunks(Object event, PayloadFormat format, TopicProperties topicProperties) {
+        String elementsProperty = topicProperties.getMaxChunkBytes() != null
+                ? eventConfigurationExtractor.getChunkableElementsProperty(event.getClass())
+                : "";
+        if (elementsProperty.isEmpty()) {
+            return Collections.singletonList(codec.encode(event, format));
+        }
+        List<ByteString> chunks = codec.encodeChunks(event, format, elementsProperty, topicProperties.getMaxChunkBytes());
+        if (chunks.size() > 1) {
+            logger.fine(() -> String.format("Split %s into %d chunks", event.getClass().getSimpleName(), chunks.size()));
+        }
+        return chunks;
+    }
+
+    private boolean isClaimChecked(Object event, ByteString payload, TopicProperties topicProperties) {
+        Long threshold = topicProperties.getClaimCheckThreshold();
+        return threshold != null
+                && payload.size() >= threshold
+                && !eventConfigurationExtractor.getLargeProperties(event.getClass()).isEmpty();
+    }
+
+    /**
+     * Puts the whole payload in the blob store, returning the key consumers fetch it with.
+     */
+    private String checkIn(String topicName, ByteString payload) {
+        if (blobStore == null) {
+            throw new IllegalStateException("Claim checks are enabled for " + topicName + ", but there is no " + BlobStore.class.getSimpleName());
+        }
+        String key = topicName + "/" + UUID.randomUUID();
+        try {
+            blobStore.put(key, payload.toByteArray());
         } catch (IOException e) {
-            throw new RuntimeException("Failed to publish a " + topicName + " event", e);
+            throw new RuntimeException("Could not put event in blob store as " + key, e);
         }
-        logger.fine("Done publishing batch");
+        logger.fine(() -> "Claim-checked event as " + key);
+        return key;
     }
 
+    private CompletableFuture<String> publishMessage(String topicName, Publisher publisher, PubsubMessage.Builder pubsubMessage, ByteString payload, PayloadFormat format, String orderingKey, TopicProperties topicProperties) {
+        PubsubMessage message = OutgoingMessages.message(pubsubMessage, payload, format, orderingKey, topicProperties);
+        return outbox == null ? OutgoingMessages.send(publisher, message) : appendToOutbox(topicName, message);
+    }
+
+    /**
+     * Leaves the message for the outbox relay to publish, completing with its message id once it has been relayed.
+     * Failing to append throws, as the caller would otherwise never learn that the event was lost.
+     */
+    private CompletableFuture<String> appendToOutbox(String topicName, PubsubMessage message) {
+        try {
+            return outboxRelay.append(topicName, message);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to append event for %s to the outbox", topicName), e);
+        }
+    }
 
     @Override
     public void doUnsubscribe(String topicName) {
-        subscriberByTopic.remove(topicName);
+        Subscriber subscriber = subscriberByTopic.remove(topicName);
+        receiverByTopic.remove(topicName);
+        if (subscriber != null) {
+            subscriber.stopAsync().awaitTerminated();
+            logger.info(String.format("Unsubscribed from %s", topicName));
+        }
+        ScheduledExecutorService executor = dedicatedExecutorByTopic.remove(topicName);
+        if (executor != null) {
+            executor.shutdown();
+        }
     }
 
-    private synchronized Publisher getPublisherFor(String topicName) {
-        return publisherByTopic.computeIfAbsent(topicName, key -> {
-            try {
-                TopicName topic = createTopicIfDoesNotExist(topicName);
-                return Publisher
-                        .newBuilder(topic)
-                        .setBatchingSettings(publisherBatchingSettings)
-                        .build();
-            } catch (IOException e) {
-                throw new IllegalStateException(String.format("Failed to create publisher for %s", topicName));
-            }
-        });
-    }
+    @Override
+    protected int doReplayDeadLetters(String topicName, int maxEvents) {
+        TopicProperties topicProperties = properties.forTopic(topicName);
+        if (topicProperties.getMaxDeliveryAttempts() == null) {
+            throw new IllegalStateException(String.format("Dead-lettering is not enabled for %s", topicName));
+        }
+        MessageReceiver receiver = receiverByTopic.get(topicName);
+        if (receiver == null) {
+            throw new IllegalStateException(String.format("There is no subscription for %s to replay dead letters through", topicName));
+        }
 
-    private void createSubscription(ProjectSubscriptionName subscriptionName, String topicId) throws IOException {
-        TopicName topicName = createTopicIfDoesNotExist(topicId);
+        try {
+            return deadLetterReplayer.replay(
+                    PubSubAdmin.deadLetterSubscriptionName(subscriptionName(topicName)),
+                    receiver,
+                    maxEvents,
+                    topicProperties.getReplayBatchSize()
+            );
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Failed to replay dead letters for %s", topicName), e);
+        }
+    }
 
-        try (SubscriptionAdminClient subscriptionAdmin = subscriptionAdminClient()) {
-            if (subscriptionDoesNotExist(subscriptionAdmin, subscriptionName)) {
-                Subscription subscription = subscriptionAdmin.createSubscription(subscriptionName, topicName, PushConfig.getDefaultInstance(), 0);
-                logger.info(String.format("Created subscription %s", subscription.getName()));
-            }
+    private Publisher createPublisher(String topicName) {
+        try {
+            TopicName topic = admin.createTopicIfDoesNotExist(topicName);
+            TopicProperties topicProperties = properties.forTopic(topicName);
+            publishPropertiesByTopic.put(topicName, topicProperties);
+            return OutgoingMessages.publisher(topic, topicProperties).build();
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Failed to create publisher for %s", topicName));
         }
     }
 
@@ -177,36 +491,6 @@ public class PubSubEventBus extends AbstractEventBus {
         return SubscriptionAdminClient.create(subscriptionAdminSettings);
     }
 
-    private TopicName createTopicIfDoesNotExist(String topicId) throws IOException {
-        TopicName topicName = TopicName.of(projectId, topicId);
-        try (TopicAdminClient topicAdmin = topicAdminClient()) {
-            if (topicDoesNotExist(topicAdmin, topicName)) {
-                Topic topic = topicAdmin.createTopic(topicName);
-                logger.info(String.format("Created topic %s", topic.getName()));
-            }
-        }
-        return topicName;
-    }
-
-    private boolean topicDoesNotExist(TopicAdminClient topicAdminClient, TopicName topicName) {
-        try {
-            logger.fine("Checking if topic " + topicName + " exists");
-            topicAdminClient.getTopic(topicName);
-            return false;
-        } catch (NotFoundException e) {
-            return true;
-        }
-    }
-
-    private boolean subscriptionDoesNotExist(SubscriptionAdminClient subscriptionAdminClient, ProjectSubscriptionName subscriptionName) {
-        try {
-            subscriptionAdminClient.getSubscription(subscriptionName);
-            return false;
-        } catch (NotFoundException e) {
-            return true;
-        }
-    }
-
     private static void validateConfig(BoclipsEventsProperties properties) {
         String consumerGroup = properties.getConsumerGroup();
         if (consumerGroup == null || consumerGroup.isEmpty()) {
@@ -221,6 +505,19 @@ public class PubSubEventBus extends AbstractEventBus {
 
     @PreDestroy
     public void closeSubscriptionsAndPublishers() {
+        if (outboxRelay != null) {
+            outboxRelay.stop();
+            outboxExecutor.shutdown();
+            try {
+                if (!outboxExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                    logger.warning("Outbox relay did not stop in time");
+                }
+                outboxRelay.abandonPending();
+                outbox.close();
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, e, () -> "Error closing outbox");
+            }
+        }
         subscriberByTopic.forEach((key, subscriber) -> {
             try {
                 subscriber.stopAsync().awaitTerminated();
@@ -229,7 +526,7 @@ public class PubSubEventBus extends AbstractEventBus {
                 logger.log(Level.SEVERE, e, () -> "Error shutting down subscriber for " + key);
             }
         });
-        publisherByTopic.forEach((key, publisher) -> {
+        publishers.forEachCreated((key, publisher) -> {
             try {
                 publisher.shutdown();
                 logger.info(String.format("Shutdown publisher for %s", key));
@@ -238,5 +535,10 @@ public class PubSubEventBus extends AbstractEventBus {
             }
 
         });
+        scheduler.shutdown();
+        dedicatedExecutorByTopic.values().forEach(ExecutorService::shutdown);
+        sharedExecutor.shutdown();
+        deadLetterReplayer.close();
+        admin.close();
     }
 }
@@ -0,0 +1,61 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.google.cloud.pubsub.v1.Publisher;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Publishers by topic, created on first use. Looking up an existing publisher never blocks; creating one only
+ * blocks callers publishing to that same topic.
+ */
+class PublisherRegistry {
+    private final ConcurrentMap<String, LazyPublisher> publisherByTopic = new ConcurrentHashMap<>();
+    private final Function<String, Publisher> publisherFactory;
+
+    PublisherRegistry(Function<String, Publisher> publisherFactory) {
+        this.publisherFactory = publisherFactory;
+    }
+
+    Publisher get(String topicName) {
+        LazyPublisher publisher = publisherByTopic.get(topicName);
+        if (publisher == null) {
+            publisher = publisherByTopic.computeIfAbsent(topicName, LazyPublisher::new);
+        }
+        return publisher.get();
+    }
+
+    void forEachCreated(BiConsumer<String, Publisher> action) {
+        publisherByTopic.forEach((topicName, publisher) -> {
+            Publisher created = publisher.publisher;
+            if (created != null) {
+                action.accept(topicName, created);
+            }
+        });
+    }
+
+    private class LazyPublisher {
+        private final String topicName;
+        private volatile Publisher publisher;
+
+        LazyPublisher(String topicName) {
+            this.topicName = topicName;
+        }
+
+        Publisher get() {
+            Publisher result = publisher;
+            if (result == null) {
+                synchronized (this) {
+                    result = publisher;
+                    if (result == null) {
+                        result = publisherFactory.apply(topicName);
+                        publisher = result;
+                    }
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.EventHandler;
+import com.google.cloud.pubsub.v1.AckReplyConsumer;
+import com.google.cloud.pubsub.v1.MessageReceiver;
+import com.google.pubsub.v1.PubsubMessage;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hands each received message to the handler, retrying a failing handler a bounded number of times with a doubling
+ * delay before nack'ing the message, so that Pub/Sub redelivers it with backoff (or dead-letters it) instead of the
+ * event being lost. Given lanes, events are handled in the lane of their entity id, and retries wait in the lane so
+ * that later events for the same entity are not handled before them. Given permits instead, the receiving thread
+ * waits for a permit before handling an event, so that only that many events are handled at once; an event waiting
+ * for its retry holds no permit. Otherwise, the scheduler only times retries, which are then handed back to the
+ * subscription's executor, so that a single-threaded subscription never handles two events at once.
+ */
+class RetryingReceiver<T> implements MessageReceiver {
+    static final String DELIVERY_ATTEMPT_ATTRIBUTE = "googclient_deliveryattempt";
+
+    private final Logger logger = Logger.getLogger(RetryingReceiver.class.getName());
+    private final String subscriptionName;
+    private final Function<PubsubMessage, T> decoder;
+    private final EventHandler<? super T> handler;
+    private final int retries;
+    private final Duration retryDelay;
+    private final boolean deadLettering;
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+    private final EventPropertyReader entityIds;
+    private final StripedExecutor lanes;
+    private final Semaphore permits;
+
+    RetryingReceiver(String subscriptionName, Class<T> eventType, MessageCodec codec, EventHandler<? super T> handler, int retries, Duration retryDelay, boolean deadLettering, Executor executor, ScheduledExecutorService scheduler) {
+        this(subscriptionName, eventType, codec, handler, retries, retryDelay, deadLettering, executor, scheduler, null, null, null);
+    }
+
+    RetryingReceiver(String subscriptionName, Class<T> eventType, MessageCodec codec, EventHandler<? super T> handler, int retries, Duration retryDelay, boolean deadLettering, Executor executor, ScheduledExecutorService scheduler, EventPropertyReader entityIds, StripedExecutor lanes, Semaphore permits) {
+        this(subscriptionName, message -> codec.decode(eventType, message), handler, retries, retryDelay, deadLettering, executor, scheduler, entityIds, lanes, permits);
+    }
+
+    RetryingReceiver(String subscriptionName, Function<PubsubMessage, T> decoder, EventHandler<? super T> handler, int retries, Duration retryDelay, boolean deadLettering, Executor executor, ScheduledExecutorService scheduler, EventPropertyReader entityIds, StripedExecutor lanes, Semaphore permits) {
+        this.subscriptionName = subscriptionName;
+        this.decoder = decoder;
+        this.handler = handler;
+        this.retries = retries;
+        this.retryDelay = retryDelay;
+        this.deadLettering = deadLettering;
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.entityIds = entityIds;
+        this.lanes = lanes;
+        this.permits = permits;
+    }
+
+    @Override
+    public void receiveMessage(PubsubMessage message, AckReplyConsumer consumer) {
+        T payload;
+        try {
+            payload = decoder.apply(message);
+        } catch (Exception e) {
+            // redelivering cannot fix an undecodable message, so only nack it when it will end up dead-lettered
+            logger.log(Level.WARNING, e, () -> "Error de-serialising message " + message.getMessageId() + " from " + subscriptionName + (deadLettering ? ", nack'ing" : ", dropping"));
+            if (deadLettering) {
+                consumer.nack();
+            } else {
+                consumer.ack();
+            }
+            return;
+        }
+
+        if (lanes != null) {
+            lanes.execute(entityIds != null ? entityIds.of(payload) : null, () -> attempt(payload, message, consumer, 0));
+            return;
+        }
+        if (permits != null) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                consumer.nack();
+                return;
+            }
+        }
+        attempt(payload, message, consumer, 0);
+    }
+
+    /**
+     * Expects to hold a permit, if there are any, and releases it once the handler is done.
+     */
+    private void attempt(T payload, PubsubMessage message, AckReplyConsumer consumer, int retry) {
+        try {
+            try {
+                handler.handle(payload);
+            } finally {
+                if (permits != null) {
+                    permits.release();
+                }
+            }
+        } catch (Exception e) {
+            if (retry < retries) {
+                long delay = retryDelay.toMillis() << retry;
+                logger.log(Level.FINE, e, () -> "Error handling message " + message.getMessageId() + " from " + subscriptionName + ", retrying in " + delay + "ms");
+                scheduleRetry(payload, message, consumer, retry + 1, delay);
+            } else {
+                logger.log(Level.WARNING, e, () -> "Error handling message " + message.getMessageId() + " from " + subscriptionName + " (delivery attempt " + deliveryAttempt(message) + "), nack'ing");
+                consumer.nack();
+            }
+            return;
+        }
+        logger.fine(() -> "Ack'ing message " + message.getMessageId() + " for " + subscriptionName);
+        consumer.ack();
+    }
+
+    private void scheduleRetry(T payload, PubsubMessage message, AckReplyConsumer consumer, int retry, long delay) {
+        if (lanes != null) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                consumer.nack();
+                return;
+            }
+            attempt(payload, message, consumer, retry);
+            return;
+        }
+        try {
+            scheduler.schedule(() -> resubmit(payload, message, consumer, retry), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            logger.fine(() -> "Not retrying message " + message.getMessageId() + " while shutting down, nack'ing");
+            consumer.nack();
+        }
+    }
+
+    private void resubmit(T payload, PubsubMessage message, AckReplyConsumer consumer, int retry) {
+        try {
+            executor.execute(() -> retryWhenPermitted(payload, message, consumer, retry));
+        } catch (RejectedExecutionException e) {
+            logger.fine(() -> "Not retrying message " + message.getMessageId() + " while shutting down, nack'ing");
+            consumer.nack();
+        }
+    }
+
+    /**
+     * Retries straight away when a permit is free, or waits for one without blocking the executor otherwise.
+     */
+    private void retryWhenPermitted(T payload, PubsubMessage message, AckReplyConsumer consumer, int retry) {
+        if (permits == null || permits.tryAcquire()) {
+            attempt(payload, message, consumer, retry);
+        } else {
+            scheduleRetry(payload, message, consumer, retry, retryDelay.toMillis());
+        }
+    }
+
+    private static String deliveryAttempt(PubsubMessage message) {
+        return message.getAttributesOrDefault(DELIVERY_ATTEMPT_ATTRIBUTE, "unknown");
+    }
+}
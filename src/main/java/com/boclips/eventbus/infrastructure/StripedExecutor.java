@@ -0,0 +1,64 @@
+package com.boclips.eventbus.infrastructure;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs tasks in a fixed number of serial lanes, picking the lane by key so that tasks with the same key run one after
+ * the other in submission order, while tasks in different lanes run in parallel. Tasks without a key are spread over
+ * the lanes. No threads of its own are used: a submitting thread that finds its lane idle drains it, all others only
+ * enqueue, so at most one thread per lane is busy at a time.
+ */
+class StripedExecutor {
+    private final Logger logger = Logger.getLogger(StripedExecutor.class.getName());
+    private final Lane[] lanes;
+    private final AtomicInteger nextUnkeyedLane = new AtomicInteger();
+
+    StripedExecutor(int stripes) {
+        lanes = new Lane[stripes];
+        for (int i = 0; i < stripes; i++) {
+            lanes[i] = new Lane();
+        }
+    }
+
+    void execute(Object key, Runnable task) {
+        int lane = key == null
+                ? Math.floorMod(nextUnkeyedLane.getAndIncrement(), lanes.length)
+                : Math.floorMod(key.hashCode(), lanes.length);
+        lanes[lane].execute(task);
+    }
+
+    private class Lane {
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            do {
+                if (!draining.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    Runnable next;
+                    while ((next = tasks.poll()) != null) {
+                        run(next);
+                    }
+                } finally {
+                    draining.set(false);
+                }
+            } while (!tasks.isEmpty());
+        }
+
+        private void run(Runnable task) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.log(Level.SEVERE, e, () -> "Unexpected error running striped task");
+            }
+        }
+    }
+}
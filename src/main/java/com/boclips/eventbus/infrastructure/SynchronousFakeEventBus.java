@@ -1,46 +1,103 @@
 package com.boclips.eventbus.infrastructure;
 
+import com.boclips.eventbus.BatchEventHandler;
 import com.boclips.eventbus.ConflictingSubscriberException;
+import com.boclips.eventbus.EventElementsHandler;
 import com.boclips.eventbus.EventHandler;
+import com.google.protobuf.ByteString;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 public class SynchronousFakeEventBus extends AbstractEventBus {
-    private Map<String, EventHandler<?>> handlerByTopic = new HashMap<>();
+    private Map<String, Object> handlerByTopic = new ConcurrentHashMap<>();
+    private Map<String, Set<String>> subtypesByTopic = new ConcurrentHashMap<>();
+    private final EventPropertyReader subtypes = EventPropertyReader.subtype();
     private List<Object> allEvents = new ArrayList<>();
     private final EventSerializer serializer = new EventSerializer();
+    private final AtomicLong messageIdSequence = new AtomicLong();
 
     @Override
-    public <T> void doSubscribe(String topicName, Class<T> eventType, EventHandler<? super T> eventHandler) {
+    public <T> void doSubscribe(String topicName, Class<T> eventType, Set<String> subtypes, EventHandler<? super T> eventHandler) {
+        register(topicName, eventType, subtypes, eventHandler);
+    }
+
+    /**
+     * Batch handlers receive all events passed to a single publish call as one batch.
+     */
+    @Override
+    protected <T> void doSubscribeBatch(String topicName, Class<T> eventType, Set<String> subtypes, BatchEventHandler<T> batchEventHandler) {
+        register(topicName, eventType, subtypes, batchEventHandler);
+    }
+
+    /**
+     * Elements handlers receive the elements of each event as parsed from its serialised form, like on Pub/Sub.
+     */
+    @Override
+    protected <E> void doSubscribeElements(String topicName, Class<?> eventType, String property, Class<E> elementType, EventElementsHandler<E> eventElementsHandler) {
+        register(topicName, eventType, Collections.emptySet(), new ElementsSubscription<>(property, elementType, eventElementsHandler));
+    }
+
+    private void register(String topicName, Class<?> eventType, Set<String> subtypes, Object eventHandler) {
         handlerByTopic.computeIfPresent(topicName, (cls, handler) -> {
             throw new ConflictingSubscriberException("There already is a subscription for " + eventType.getSimpleName() + ": " + handler.getClass().getSimpleName());
         });
         handlerByTopic.put(topicName, eventHandler);
+        subtypesByTopic.put(topicName, subtypes);
+        serializer.register(eventType);
         Logger.getLogger(SynchronousFakeEventBus.class.getSimpleName()).info("Subscribed: " + topicName);
     }
 
     @Override
     @SuppressWarnings("unchecked")
-    protected void doPublish(Iterable<?> events, String topicName) {
-        EventHandler<Object> eventHandler = (EventHandler<Object>) handlerByTopic.get(topicName);
+    protected CompletableFuture<List<String>> doPublish(Iterable<?> events, String topicName) {
+        Object handler = handlerByTopic.get(topicName);
+        Set<String> allowedSubtypes = subtypesByTopic.getOrDefault(topicName, Collections.emptySet());
+        List<Object> batch = new ArrayList<>();
+        List<String> messageIds = new ArrayList<>();
         events.forEach(event -> {
             allEvents.add(event);
             byte[] eventBytes = serializer.serialise(event);
-            if (eventHandler != null) {
-                eventHandler.handle(serializer.deserialise(event, eventBytes));
+            String subtype = subtypes.of(event);
+            boolean filteredOut = subtype != null && !allowedSubtypes.isEmpty() && !allowedSubtypes.contains(subtype);
+            if (filteredOut) {
+                Logger.getLogger(SynchronousFakeEventBus.class.getSimpleName()).fine("Not delivering " + subtype + " event: " + topicName);
+            } else if (handler instanceof EventHandler) {
+                ((EventHandler<Object>) handler).handle(serializer.deserialise(event, eventBytes));
+            } else if (handler instanceof BatchEventHandler) {
+                batch.add(serializer.deserialise(event, eventBytes));
+            } else if (handler instanceof ElementsSubscription) {
+                ((ElementsSubscription<?>) handler).handle(eventBytes);
             }
+            messageIds.add(String.valueOf(messageIdSequence.incrementAndGet()));
             Logger.getLogger(SynchronousFakeEventBus.class.getSimpleName()).info("Published event: " + topicName);
         });
+        if (handler instanceof BatchEventHandler && !batch.isEmpty()) {
+            ((BatchEventHandler<Object>) handler).handle(batch);
+        }
+        return CompletableFuture.completedFuture(messageIds);
     }
 
     @Override
     public void doUnsubscribe(String topicName) {
         handlerByTopic.remove(topicName);
+        subtypesByTopic.remove(topicName);
+    }
+
+    /**
+     * Handlers are called synchronously and their failures surface on publish, so nothing is ever dead-lettered.
+     */
+    @Override
+    protected int doReplayDeadLetters(String topicName, int maxEvents) {
+        return 0;
     }
 
     public <T> Boolean hasReceivedEventOfType(Class<T> eventType) {
@@ -81,4 +138,20 @@ public class SynchronousFakeEventBus extends AbstractEventBus {
                 .map(event -> (T) event)
                 .collect(Collectors.toList());
     }
+
+    private class ElementsSubscription<E> {
+        private final String property;
+        private final Class<E> elementType;
+        private final EventElementsHandler<E> handler;
+
+        ElementsSubscription(String property, Class<E> elementType, EventElementsHandler<E> handler) {
+            this.property = property;
+            this.elementType = elementType;
+            this.handler = handler;
+        }
+
+        void handle(byte[] eventBytes) {
+            handler.handle(serializer.deserialiseElements(ByteString.copyFrom(eventBytes), property, elementType).iterator());
+        }
+    }
 }
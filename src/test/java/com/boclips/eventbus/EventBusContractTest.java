@@ -49,6 +49,22 @@ public class EventBusContractTest extends AbstractPubSubTest {
         eventBus.unsubscribe(VideoAnalysisRequested.class);
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(EventBusArgumentProvider.class)
+    void publishAsync_whenEventPublished_completesWithMessageId(EventBus eventBus) {
+        TestEventHandler<VideoAnalysisRequested> handler = new TestEventHandler<>();
+        eventBus.subscribe(VideoAnalysisRequested.class, handler);
+
+        String messageId = eventBus.publishAsync(videoAnalysisRequested).join();
+
+        assertThat(messageId).isNotEmpty();
+        await().atMost(5, SECONDS).untilAsserted(() ->
+                assertThat(handler.getEvents()).containsExactly(videoAnalysisRequested)
+        );
+
+        eventBus.unsubscribe(VideoAnalysisRequested.class);
+    }
+
     @ParameterizedTest
     @ArgumentsSource(EventBusArgumentProvider.class)
     void subscribing_whenTopicAlreadySubscribedTo_throws(EventBus eventBus) {
@@ -2,6 +2,10 @@ package com.boclips.eventbus.config;
 
 import com.boclips.eventbus.BoclipsEvent;
 import com.boclips.eventbus.BoclipsEventListener;
+import com.boclips.eventbus.domain.video.Video;
+import com.boclips.eventbus.events.collection.CollectionVideosBulkChanged;
+import com.boclips.eventbus.events.video.VideoAnalysed;
+import com.boclips.eventbus.events.video.VideosUpdated;
 import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Method;
@@ -43,6 +47,32 @@ class BoclipsEventConfigurationExtractorTest {
                 .isInstanceOf(InvalidMessagingConfiguration.class);
     }
 
+    @Test
+    public void getElementType_returnsTheTypeOfTheDeclaredListElements() {
+        assertThat(eventConfigurationExtractor.getElementType(VideosUpdated.class)).isEqualTo(Video.class);
+        assertThat(eventConfigurationExtractor.getElementType(CollectionVideosBulkChanged.class)).isEqualTo(String.class);
+    }
+
+    @Test
+    public void getElementType_whenEventDeclaresNoElements_throws() {
+        assertThatThrownBy(() -> eventConfigurationExtractor.getElementType(TestPayload.class))
+                .isInstanceOf(InvalidMessagingConfiguration.class);
+    }
+
+    @Test
+    public void getChunkableElementsProperty_isOnlySetForChunkableEvents() {
+        assertThat(eventConfigurationExtractor.getChunkableElementsProperty(VideosUpdated.class)).isEqualTo("videos");
+        assertThat(eventConfigurationExtractor.getChunkableElementsProperty(CollectionVideosBulkChanged.class)).isEmpty();
+        assertThat(eventConfigurationExtractor.getChunkableElementsProperty(TestPayloadWithoutTopicAnnotation.class)).isEmpty();
+    }
+
+    @Test
+    public void getLargeProperties_returnsTheDeclaredPaths() {
+        assertThat(eventConfigurationExtractor.getLargeProperties(VideoAnalysed.class)).containsExactly("transcript", "captions.content");
+        assertThat(eventConfigurationExtractor.getLargeProperties(TestPayload.class)).isEmpty();
+        assertThat(eventConfigurationExtractor.getLargeProperties(TestPayloadWithoutTopicAnnotation.class)).isEmpty();
+    }
+
     static class TestListener {
 
         @BoclipsEventListener
@@ -63,4 +93,41 @@ class BoclipsEventConfigurationExtractorTest {
         assertThat(listenerMethods.get(0).getEventName()).isEqualTo("messaging-configurer-test-topic");
     }
 
+    static class TestBatchListener {
+
+        @BoclipsEventListener
+        public void onEvents(List<TestPayload> eventPayloads) {
+
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    static class TestRawBatchListener {
+
+        @BoclipsEventListener
+        public void onEvents(List eventPayloads) {
+
+        }
+    }
+
+    @Test
+    public void getListenerMethods_whenMethodTakesAList_returnsBatchListener() {
+        List<EventConfigurationExtractor.ListenerMethodInfo> listenerMethods = eventConfigurationExtractor.getListenerMethods(new TestBatchListener());
+
+        assertThat(listenerMethods).hasSize(1);
+        assertThat(listenerMethods.get(0).isBatch()).isTrue();
+        assertThat(listenerMethods.get(0).getEventType()).isEqualTo(TestPayload.class);
+        assertThat(listenerMethods.get(0).getEventName()).isEqualTo("messaging-configurer-test-topic");
+    }
+
+    @Test
+    public void getListenerMethods_whenSingleEventMethod_isNotBatch() {
+        assertThat(eventConfigurationExtractor.getListenerMethods(new TestListener()).get(0).isBatch()).isFalse();
+    }
+
+    @Test
+    public void getListenerMethods_whenListHasNoElementType_throws() {
+        assertThatThrownBy(() -> eventConfigurationExtractor.getListenerMethods(new TestRawBatchListener()))
+                .isInstanceOf(InvalidMessagingConfiguration.class);
+    }
 }
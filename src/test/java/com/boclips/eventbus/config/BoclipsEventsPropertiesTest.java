@@ -0,0 +1,142 @@
+package com.boclips.eventbus.config;
+
+import com.google.api.gax.batching.FlowController.LimitExceededBehavior;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoclipsEventsPropertiesTest {
+
+    private BoclipsEventsProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new BoclipsEventsProperties();
+    }
+
+    @Test
+    void forTopic_whenNothingConfigured_returnsBuiltInDefaults() {
+        TopicProperties topic = properties.forTopic("video-segment-played");
+
+        assertThat(topic.getParallelPullCount()).isEqualTo(1);
+        assertThat(topic.getDedicatedExecutor()).isTrue();
+        assertThat(topic.getExecutorThreadCount()).isEqualTo(1);
+        assertThat(topic.getMaxOutstandingElementCount()).isEqualTo(10L);
+        assertThat(topic.getBatchDelayThreshold()).isEqualTo(Duration.ofSeconds(1));
+        assertThat(topic.getPublisherMaxOutstandingElementCount()).isNull();
+        assertThat(topic.getPublisherLimitExceededBehavior()).isEqualTo(LimitExceededBehavior.Ignore);
+        assertThat(topic.getHandlerRetries()).isEqualTo(2);
+        assertThat(topic.getMinimumRedeliveryBackoff()).isNull();
+        assertThat(topic.getMaxDeliveryAttempts()).isNull();
+        assertThat(topic.getOrderedByEntityId()).isFalse();
+        assertThat(topic.getMessageOrdering()).isFalse();
+    }
+
+    @Test
+    void forTopic_whenDefaultsConfigured_usesThem() {
+        properties.getDefaults().setParallelPullCount(2);
+
+        assertThat(properties.forTopic("video-segment-played").getParallelPullCount()).isEqualTo(2);
+    }
+
+    @Test
+    void forTopic_whenTopicConfigured_overridesOnlyWhatIsSet() {
+        properties.getDefaults().setParallelPullCount(2);
+        TopicProperties videoSegmentPlayed = new TopicProperties();
+        videoSegmentPlayed.setDedicatedExecutor(false);
+        videoSegmentPlayed.setExecutorThreadCount(8);
+        properties.getTopics().put("video-segment-played", videoSegmentPlayed);
+
+        TopicProperties topic = properties.forTopic("video-segment-played");
+
+        assertThat(topic.getDedicatedExecutor()).isFalse();
+        assertThat(topic.getExecutorThreadCount()).isEqualTo(8);
+        assertThat(topic.getParallelPullCount()).isEqualTo(2);
+        assertThat(properties.forTopic("page-rendered").getDedicatedExecutor()).isTrue();
+    }
+
+    @Test
+    void forTopic_resolvesFlowControlAndBatchingPerTopic() {
+        TopicProperties videosUpdated = new TopicProperties();
+        videosUpdated.setMaxOutstandingRequestBytes(50L * 1024 * 1024);
+        properties.getTopics().put("videos-updated", videosUpdated);
+        TopicProperties pageRendered = new TopicProperties();
+        pageRendered.setBatchDelayThreshold(Duration.ofMillis(10));
+        properties.getTopics().put("page-rendered", pageRendered);
+
+        assertThat(properties.forTopic("videos-updated").getMaxOutstandingRequestBytes()).isEqualTo(50L * 1024 * 1024);
+        assertThat(properties.forTopic("videos-updated").getBatchDelayThreshold()).isEqualTo(Duration.ofSeconds(1));
+        assertThat(properties.forTopic("page-rendered").getBatchDelayThreshold()).isEqualTo(Duration.ofMillis(10));
+        assertThat(properties.forTopic("page-rendered").getMaxOutstandingRequestBytes()).isEqualTo(1024L * 1024L);
+    }
+
+    @Test
+    void forTopic_rejectsMaxDeliveryAttemptsPubSubDoesNotAllow() {
+        properties.getDefaults().setMaxDeliveryAttempts(100);
+        TopicProperties pageRendered = new TopicProperties();
+        pageRendered.setMaxDeliveryAttempts(3);
+        properties.getTopics().put("page-rendered", pageRendered);
+
+        assertThat(properties.forTopic("video-segment-played").getMaxDeliveryAttempts()).isEqualTo(100);
+        assertThatThrownBy(() -> properties.forTopic("page-rendered"))
+                .isInstanceOf(InvalidMessagingConfiguration.class)
+                .hasMessageContaining("page-rendered");
+    }
+
+    @Test
+    void bindsFromSpringProperties() {
+        Map<String, String> source = new HashMap<>();
+        source.put("pubsub.tuned-serialisation", "true");
+        source.put("pubsub.outbox.directory", "/var/lib/events/outbox");
+        source.put("pubsub.outbox.relay-interval", "50ms");
+        source.put("pubsub.defaults.parallel-pull-count", "3");
+        source.put("pubsub.topics.page-rendered.batch-delay-threshold", "10ms");
+        source.put("pubsub.topics.page-rendered.publisher-limit-exceeded-behavior", "block");
+        source.put("pubsub.topics.page-rendered.max-delivery-attempts", "5");
+        source.put("pubsub.topics.video-updated.message-ordering", "true");
+        source.put("pubsub.topics.videos-updated.compression", "gzip");
+        source.put("pubsub.topics.video-segment-played.payload-format", "smile");
+        source.put("pubsub.topics.videos-updated.max-chunk-bytes", "5000000");
+        source.put("pubsub.topics.videos-updated.reassemble-chunks", "true");
+        source.put("pubsub.topics.video-analysed.claim-check-threshold", "65536");
+        source.put("pubsub.topics.video-analysed.resolve-claim-checks", "false");
+
+        BoclipsEventsProperties bound = new Binder(new MapConfigurationPropertySource(source))
+                .bind("pubsub", BoclipsEventsProperties.class)
+                .get();
+
+        assertThat(bound.isTunedSerialisation()).isTrue();
+        assertThat(bound.getOutbox().getDirectory()).isEqualTo("/var/lib/events/outbox");
+        assertThat(bound.getOutbox().getRelayInterval()).isEqualTo(Duration.ofMillis(50));
+        assertThat(bound.getOutbox().getRelayBatchSize()).isEqualTo(1000);
+        assertThat(bound.forTopic("page-rendered").getBatchDelayThreshold()).isEqualTo(Duration.ofMillis(10));
+        assertThat(bound.forTopic("page-rendered").getPublisherLimitExceededBehavior()).isEqualTo(LimitExceededBehavior.Block);
+        assertThat(bound.forTopic("page-rendered").getParallelPullCount()).isEqualTo(3);
+        assertThat(bound.forTopic("page-rendered").getMaxOutstandingElementCount()).isEqualTo(10L);
+        assertThat(bound.forTopic("page-rendered").getMaxDeliveryAttempts()).isEqualTo(5);
+        assertThat(bound.forTopic("video-segment-played").getMaxDeliveryAttempts()).isNull();
+        assertThat(bound.forTopic("video-updated").getMessageOrdering()).isTrue();
+        assertThat(bound.forTopic("videos-updated").getCompression()).isEqualTo(Compression.GZIP);
+        assertThat(bound.forTopic("video-updated").getCompression()).isEqualTo(Compression.NONE);
+        assertThat(bound.forTopic("video-segment-played").getPayloadFormat()).isEqualTo(PayloadFormat.SMILE);
+        assertThat(bound.forTopic("page-rendered").getPayloadFormat()).isEqualTo(PayloadFormat.JSON);
+        assertThat(bound.forTopic("videos-updated").getMaxChunkBytes()).isEqualTo(5_000_000L);
+        assertThat(bound.forTopic("videos-updated").getReassembleChunks()).isTrue();
+        assertThat(bound.forTopic("videos-updated").getChunkReassemblyTimeout()).isEqualTo(Duration.ofMinutes(1));
+        assertThat(bound.forTopic("videos-updated").getMaxReassembledChunks()).isEqualTo(10);
+        assertThat(bound.forTopic("video-updated").getMaxChunkBytes()).isNull();
+        assertThat(bound.forTopic("video-updated").getReassembleChunks()).isFalse();
+        assertThat(bound.forTopic("video-analysed").getClaimCheckThreshold()).isEqualTo(65536L);
+        assertThat(bound.forTopic("video-analysed").getResolveClaimChecks()).isFalse();
+        assertThat(bound.forTopic("video-updated").getClaimCheckThreshold()).isNull();
+        assertThat(bound.forTopic("video-updated").getResolveClaimChecks()).isTrue();
+    }
+}
@@ -0,0 +1,89 @@
+package com.boclips.eventbus.config;
+
+import com.boclips.eventbus.BoclipsEventListener;
+import com.boclips.eventbus.ConflictingSubscriberException;
+import com.boclips.eventbus.infrastructure.SynchronousFakeEventBus;
+import com.boclips.eventbus.testsupport.DemoSubscriptionListener;
+import com.boclips.eventbus.testsupport.TestEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoclipsSubscriptionRegistrationPostProcessorTest {
+
+    private SynchronousFakeEventBus eventBus;
+    private BoclipsSubscriptionRegistrationPostProcessor postProcessor;
+
+    @BeforeEach
+    void setUp() {
+        eventBus = new SynchronousFakeEventBus();
+        postProcessor = new BoclipsSubscriptionRegistrationPostProcessor(eventBus);
+    }
+
+    @Test
+    void subscribesListenersOnceSingletonsAreInstantiated() {
+        DemoSubscriptionListener listener = new DemoSubscriptionListener();
+        postProcessor.postProcessAfterInitialization(listener, "listener");
+
+        eventBus.publish(anEvent("before"));
+        assertThat(listener.getEvent()).isNull();
+
+        postProcessor.afterSingletonsInstantiated();
+        eventBus.publish(anEvent("after"));
+
+        assertThat(listener.getEvent().getName()).isEqualTo("after");
+    }
+
+    @Test
+    void subscribesListenersImmediatelyOnceSingletonsAreInstantiated() {
+        postProcessor.afterSingletonsInstantiated();
+
+        DemoSubscriptionListener listener = new DemoSubscriptionListener();
+        postProcessor.postProcessAfterInitialization(listener, "listener");
+        eventBus.publish(anEvent("hello"));
+
+        assertThat(listener.getEvent().getName()).isEqualTo("hello");
+    }
+
+    @Test
+    void propagatesSubscriptionFailures() {
+        postProcessor.postProcessAfterInitialization(new DemoSubscriptionListener(), "listener");
+        postProcessor.postProcessAfterInitialization(new DemoSubscriptionListener(), "anotherListener");
+
+        assertThatThrownBy(() -> postProcessor.afterSingletonsInstantiated())
+                .isInstanceOf(ConflictingSubscriberException.class);
+    }
+
+    @Test
+    void subscribesBatchListeners() {
+        BatchListener listener = new BatchListener();
+        postProcessor.postProcessAfterInitialization(listener, "batchListener");
+        postProcessor.afterSingletonsInstantiated();
+
+        eventBus.publish(Arrays.asList(anEvent("one"), anEvent("two")));
+
+        assertThat(listener.batches).hasSize(1);
+        assertThat(listener.batches.get(0)).extracting(TestEvent::getName).containsExactly("one", "two");
+    }
+
+    static class BatchListener {
+        final List<List<TestEvent>> batches = new ArrayList<>();
+
+        @BoclipsEventListener
+        public void onEvents(List<TestEvent> events) {
+            batches.add(events);
+        }
+    }
+
+    private static TestEvent anEvent(String name) {
+        TestEvent event = new TestEvent();
+        event.setName(name);
+        return event;
+    }
+}
@@ -0,0 +1,83 @@
+package com.boclips.eventbus.config;
+
+import com.boclips.eventbus.BoclipsEvent;
+import com.boclips.eventbus.BoclipsEventListener;
+import com.boclips.eventbus.EventHandlingException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventListenerTest {
+
+    @BoclipsEvent("event-listener-test-topic")
+    static class TestPayload {
+    }
+
+    static class TestListener {
+        final List<TestPayload> received = new ArrayList<>();
+
+        @BoclipsEventListener
+        void onEvent(TestPayload payload) {
+            received.add(payload);
+        }
+    }
+
+    static class FailingListener {
+        @BoclipsEventListener
+        public void onEvent(TestPayload payload) {
+            throw new IllegalStateException("downstream unavailable");
+        }
+    }
+
+    static class CheckedFailingListener {
+        @BoclipsEventListener
+        public void onEvent(TestPayload payload) throws IOException {
+            throw new IOException("disk full");
+        }
+    }
+
+    @Test
+    void receive_invokesListenerMethod() {
+        TestListener bean = new TestListener();
+        TestPayload payload = new TestPayload();
+
+        listenerFor(bean).receive(payload);
+
+        assertThat(bean.received).containsExactly(payload);
+    }
+
+    @Test
+    void receive_propagatesRuntimeExceptions() {
+        EventListener listener = listenerFor(new FailingListener());
+
+        assertThatThrownBy(() -> listener.receive(new TestPayload()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("downstream unavailable");
+    }
+
+    @Test
+    void receive_wrapsCheckedExceptions() {
+        EventListener listener = listenerFor(new CheckedFailingListener());
+
+        assertThatThrownBy(() -> listener.receive(new TestPayload()))
+                .isInstanceOf(EventHandlingException.class)
+                .hasCauseInstanceOf(IOException.class)
+                .hasMessageContaining("event-listener-test-topic");
+    }
+
+    @Test
+    void receive_whenMessageHasWrongType_throws() {
+        EventListener listener = listenerFor(new TestListener());
+
+        assertThatThrownBy(() -> listener.receive("not a payload")).isInstanceOf(ClassCastException.class);
+    }
+
+    private static EventListener listenerFor(Object bean) {
+        return new EventListener(bean, new EventConfigurationExtractor().getListenerMethods(bean).get(0));
+    }
+}
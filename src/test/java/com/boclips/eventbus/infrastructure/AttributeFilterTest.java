@@ -0,0 +1,72 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.config.InvalidMessagingConfiguration;
+import com.google.cloud.pubsub.v1.AckReplyConsumer;
+import com.google.cloud.pubsub.v1.MessageReceiver;
+import com.google.pubsub.v1.PubsubMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class AttributeFilterTest {
+
+    private final AttributeFilter filter = new AttributeFilter(Collections.singletonMap("schemaVersion", Arrays.asList("2", "3")));
+
+    @Test
+    void acceptsAllowedValuesAndMessagesWithoutTheAttribute() {
+        assertThat(filter.accepts(Collections.singletonMap("schemaVersion", "2"))).isTrue();
+        assertThat(filter.accepts(Collections.emptyMap())).isTrue();
+        assertThat(filter.accepts(Collections.singletonMap("schemaVersion", "1"))).isFalse();
+    }
+
+    @Test
+    void rendersPubSubFilter() {
+        Map<String, List<String>> allowed = new HashMap<>();
+        allowed.put("schemaVersion", Collections.singletonList("2"));
+        allowed.put("producer", Arrays.asList("video-service", "user-service"));
+
+        assertThat(new AttributeFilter(allowed).toSubscriptionFilter()).isEqualTo(
+                "(NOT attributes:producer OR attributes.producer = \"video-service\" OR attributes.producer = \"user-service\")"
+                        + " AND (NOT attributes:schemaVersion OR attributes.schemaVersion = \"2\")");
+        assertThat(new AttributeFilter(Collections.emptyMap()).toSubscriptionFilter()).isEmpty();
+    }
+
+    @Test
+    void rendersNoPubSubFilterWhenItWouldBeTooLong() {
+        List<String> producers = Arrays.asList("video-service", "user-service", "collection-service", "search-service", "analytics-service", "licensing-service");
+        AttributeFilter longFilter = new AttributeFilter(Collections.singletonMap("producer", producers));
+
+        assertThat(longFilter.toSubscriptionFilter()).isEmpty();
+        assertThat(longFilter.accepts(Collections.singletonMap("producer", "video-service"))).isTrue();
+        assertThat(longFilter.accepts(Collections.singletonMap("producer", "other-service"))).isFalse();
+    }
+
+    @Test
+    void acksRejectedMessagesWithoutHandingThemOver() {
+        MessageReceiver receiver = mock(MessageReceiver.class);
+        AckReplyConsumer consumer = mock(AckReplyConsumer.class);
+        PubsubMessage message = PubsubMessage.newBuilder().putAttributes("schemaVersion", "1").build();
+
+        filter.applyTo(receiver).receiveMessage(message, consumer);
+
+        verify(consumer).ack();
+        verify(receiver, never()).receiveMessage(any(), any());
+    }
+
+    @Test
+    void rejectsAttributeNamesPubSubCannotFilterOn() {
+        assertThatThrownBy(() -> new AttributeFilter(Collections.singletonMap("schema-version", Collections.singletonList("2"))))
+                .isInstanceOf(InvalidMessagingConfiguration.class);
+    }
+}
@@ -0,0 +1,162 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.config.PayloadFormat;
+import com.boclips.eventbus.events.video.VideoAnalysisRequested;
+import com.google.cloud.pubsub.v1.AckReplyConsumer;
+import com.google.protobuf.ByteString;
+import com.google.pubsub.v1.PubsubMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class BatchingReceiverTest {
+
+    private final MessageCodec codec = new MessageCodec();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final List<List<VideoAnalysisRequested>> batches = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void handsOverBatchOnceFullAndAcksIt() {
+        BatchingReceiver<VideoAnalysisRequested> receiver = receiver(2, Duration.ofMinutes(1));
+        AckReplyConsumer first = mock(AckReplyConsumer.class);
+        AckReplyConsumer second = mock(AckReplyConsumer.class);
+
+        receiver.receiveMessage(message("1"), first);
+        assertThat(batches).isEmpty();
+        receiver.receiveMessage(message("2"), second);
+
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).extracting(VideoAnalysisRequested::getVideoId).containsExactly("1", "2");
+        verify(first).ack();
+        verify(second).ack();
+    }
+
+    @Test
+    void handsOverPartialBatchOnceWindowHasPassed() {
+        BatchingReceiver<VideoAnalysisRequested> receiver = receiver(100, Duration.ofMillis(50));
+        AckReplyConsumer consumer = mock(AckReplyConsumer.class);
+
+        receiver.receiveMessage(message("1"), consumer);
+
+        await().atMost(5, SECONDS).untilAsserted(() -> assertThat(batches).hasSize(1));
+        verify(consumer).ack();
+    }
+
+    @Test
+    void windowFlushDoesNotOverlapFullBatchOnSingleThreadedSubscription() throws InterruptedException {
+        ExecutorService subscription = Executors.newSingleThreadExecutor();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+        BatchingReceiver<VideoAnalysisRequested> receiver = new BatchingReceiver<>("subscription", VideoAnalysisRequested.class, codec, events -> {
+            mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(50);
+            running.decrementAndGet();
+            batches.add(events);
+        }, 2, Duration.ofMillis(20), 2, Duration.ofMillis(10), false, subscription, scheduler);
+        AckReplyConsumer consumer = mock(AckReplyConsumer.class);
+
+        subscription.execute(() -> receiver.receiveMessage(message("1"), consumer));
+        Thread.sleep(30);
+        subscription.execute(() -> receiver.receiveMessage(message("2"), consumer));
+        subscription.execute(() -> receiver.receiveMessage(message("3"), consumer));
+
+        await().atMost(5, SECONDS).untilAsserted(() -> assertThat(batches).hasSize(2));
+        assertThat(mostRunning).hasValue(1);
+        subscription.shutdownNow();
+    }
+
+    @Test
+    void nacksWholeBatchOnceRetriesAreExhausted() {
+        AtomicInteger attempts = new AtomicInteger();
+        BatchingReceiver<VideoAnalysisRequested> receiver = new BatchingReceiver<>("subscription", VideoAnalysisRequested.class, codec, events -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("index unavailable");
+        }, 2, Duration.ofMinutes(1), 2, Duration.ofMillis(10), false, Runnable::run, scheduler);
+        AckReplyConsumer first = mock(AckReplyConsumer.class);
+        AckReplyConsumer second = mock(AckReplyConsumer.class);
+
+        receiver.receiveMessage(message("1"), first);
+        receiver.receiveMessage(message("2"), second);
+
+        await().atMost(5, SECONDS).untilAsserted(() -> verify(first).nack());
+        verify(second).nack();
+        verify(first, never()).ack();
+        assertThat(attempts).hasValue(3);
+    }
+
+    @Test
+    void retriesFailingBatchAndAcksOnceItSucceeds() {
+        AtomicInteger attempts = new AtomicInteger();
+        BatchingReceiver<VideoAnalysisRequested> receiver = new BatchingReceiver<>("subscription", VideoAnalysisRequested.class, codec, events -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("index unavailable");
+            }
+        }, 1, Duration.ofMinutes(1), 2, Duration.ofMillis(10), false, Runnable::run, scheduler);
+        AckReplyConsumer consumer = mock(AckReplyConsumer.class);
+
+        receiver.receiveMessage(message("1"), consumer);
+
+        await().atMost(5, SECONDS).untilAsserted(() -> verify(consumer).ack());
+        verify(consumer, never()).nack();
+    }
+
+    @Test
+    void dropsUndecodableMessageWithoutDeadLettering() {
+        AckReplyConsumer consumer = mock(AckReplyConsumer.class);
+
+        receiver(2, Duration.ofMinutes(1)).receiveMessage(undecodableMessage(), consumer);
+
+        verify(consumer).ack();
+    }
+
+    @Test
+    void nacksUndecodableMessageWithDeadLettering() {
+        AckReplyConsumer consumer = mock(AckReplyConsumer.class);
+        BatchingReceiver<VideoAnalysisRequested> receiver = new BatchingReceiver<>("subscription", VideoAnalysisRequested.class, codec, batches::add, 2, Duration.ofMinutes(1), 2, Duration.ofMillis(10), true, Runnable::run, scheduler);
+
+        receiver.receiveMessage(undecodableMessage(), consumer);
+
+        verify(consumer).nack();
+        assertThat(batches).isEmpty();
+    }
+
+    private BatchingReceiver<VideoAnalysisRequested> receiver(int batchSize, Duration window) {
+        return new BatchingReceiver<>("subscription", VideoAnalysisRequested.class, codec, batches::add, batchSize, window, 2, Duration.ofMillis(10), false, Runnable::run, scheduler);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private PubsubMessage undecodableMessage() {
+        return PubsubMessage.newBuilder().setData(ByteString.copyFromUtf8("{not json")).build();
+    }
+
+    private PubsubMessage message(String videoId) {
+        VideoAnalysisRequested event = VideoAnalysisRequested.builder().videoId(videoId).videoUrl("url").build();
+        return PubsubMessage.newBuilder().setData(codec.encode(event, PayloadFormat.JSON)).build();
+    }
+}
@@ -0,0 +1,134 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.config.PayloadFormat;
+import com.boclips.eventbus.events.collection.CollectionVideosBulkChanged;
+import com.google.cloud.pubsub.v1.AckReplyConsumer;
+import com.google.cloud.pubsub.v1.MessageReceiver;
+import com.google.protobuf.ByteString;
+import com.google.pubsub.v1.PubsubMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class ChunkAssemblerTest {
+
+    private final MessageCodec codec = new MessageCodec();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "subscription"));
+    private final List<PubsubMessage> received = new CopyOnWriteArrayList<>();
+    private final List<String> handlingThreads = new CopyOnWriteArrayList<>();
+    private final MessageReceiver receiver = (message, consumer) -> {
+        received.add(message);
+        handlingThreads.add(Thread.currentThread().getName());
+        consumer.ack();
+    };
+    private final CollectionVideosBulkChanged event = bulkChanged("video-1", "video-2", "video-3");
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void joinsAllChunksIntoOneMessageAndAcksThemTogether() {
+        ChunkAssembler assembler = assembler(Duration.ofMinutes(1));
+        List<PubsubMessage> chunks = chunks();
+        AckReplyConsumer first = mock(AckReplyConsumer.class);
+        AckReplyConsumer second = mock(AckReplyConsumer.class);
+
+        assembler.receiveMessage(chunks.get(1), second);
+        assertThat(received).isEmpty();
+        assembler.receiveMessage(chunks.get(0), first);
+
+        assertThat(received).hasSize(1);
+        assertThat(received.get(0).getAttributesMap()).doesNotContainKeys(MessageAttributes.CHUNK_ID, MessageAttributes.CHUNK_INDEX, MessageAttributes.CHUNK_COUNT);
+        assertThat(codec.decode(CollectionVideosBulkChanged.class, received.get(0))).isEqualTo(event);
+        verify(first).ack();
+        verify(second).ack();
+    }
+
+    @Test
+    void handsOverChunksOneByOneWhenTheyDoNotAllArriveInTime() {
+        ChunkAssembler assembler = assembler(Duration.ofMillis(10));
+        AckReplyConsumer consumer = mock(AckReplyConsumer.class);
+
+        assembler.receiveMessage(chunks().get(0), consumer);
+
+        await().atMost(5, SECONDS).untilAsserted(() -> verify(consumer).ack());
+        assertThat(codec.decode(CollectionVideosBulkChanged.class, received.get(0)).getVideoIds()).containsExactly("video-1", "video-2");
+        assertThat(handlingThreads).containsExactly("subscription");
+    }
+
+    @Test
+    void replacesRedeliveredChunks() {
+        ChunkAssembler assembler = assembler(Duration.ofMinutes(1));
+        List<PubsubMessage> chunks = chunks();
+        AckReplyConsumer firstDelivery = mock(AckReplyConsumer.class);
+        AckReplyConsumer redelivery = mock(AckReplyConsumer.class);
+
+        assembler.receiveMessage(chunks.get(0), firstDelivery);
+        assembler.receiveMessage(chunks.get(0), redelivery);
+        assembler.receiveMessage(chunks.get(1), mock(AckReplyConsumer.class));
+
+        assertThat(received).hasSize(1);
+        verify(firstDelivery).nack();
+        verify(firstDelivery, never()).ack();
+        verify(redelivery).ack();
+    }
+
+    @Test
+    void passesOtherMessagesStraightThrough() {
+        AckReplyConsumer consumer = mock(AckReplyConsumer.class);
+        PubsubMessage message = PubsubMessage.newBuilder().setData(codec.encode(event, PayloadFormat.JSON)).build();
+
+        assembler(Duration.ofMinutes(1)).receiveMessage(message, consumer);
+
+        assertThat(received).containsExactly(message);
+        verify(consumer).ack();
+    }
+
+    private ChunkAssembler assembler(Duration timeout) {
+        return new ChunkAssembler(receiver, codec, "videoIds", timeout, executor, scheduler);
+    }
+
+    private List<PubsubMessage> chunks() {
+        List<ByteString> payloads = Arrays.asList(
+                codec.encode(bulkChanged("video-1", "video-2"), PayloadFormat.JSON),
+                codec.encode(bulkChanged("video-3"), PayloadFormat.JSON)
+        );
+        List<PubsubMessage> chunks = new ArrayList<>();
+        for (int i = 0; i < payloads.size(); i++) {
+            chunks.add(PubsubMessage.newBuilder()
+                    .putAttributes(MessageAttributes.CHUNK_ID, "chunk-id")
+                    .putAttributes(MessageAttributes.CHUNK_INDEX, String.valueOf(i))
+                    .putAttributes(MessageAttributes.CHUNK_COUNT, String.valueOf(payloads.size()))
+                    .setData(payloads.get(i))
+                    .build());
+        }
+        return chunks;
+    }
+
+    private static CollectionVideosBulkChanged bulkChanged(String... videoIds) {
+        return CollectionVideosBulkChanged.builder()
+                .userId("user-456")
+                .collectionId("collection-1")
+                .videoIds(Arrays.asList(videoIds))
+                .build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.BlobStore;
+import com.google.cloud.pubsub.v1.AckReplyConsumer;
+import com.google.cloud.pubsub.v1.MessageReceiver;
+import com.google.protobuf.ByteString;
+import com.google.pubsub.v1.PubsubMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class ClaimCheckResolverTest {
+
+    @TempDir
+    Path directory;
+
+    private final MessageReceiver receiver = mock(MessageReceiver.class);
+    private final AckReplyConsumer consumer = mock(AckReplyConsumer.class);
+
+    @Test
+    void receiverGetsTheWholeEventFromTheBlobStore() throws IOException {
+        BlobStore blobStore = new FileSystemBlobStore(directory);
+        blobStore.put("video-analysed/1", "{\"videoId\":\"1\",\"transcript\":\"hello everybody\"}".getBytes(StandardCharsets.UTF_8));
+
+        new ClaimCheckResolver(receiver, blobStore).receiveMessage(claimChecked("video-analysed/1"), consumer);
+
+        ArgumentCaptor<PubsubMessage> received = ArgumentCaptor.forClass(PubsubMessage.class);
+        verify(receiver).receiveMessage(received.capture(), eq(consumer));
+        assertThat(received.getValue().getData().toStringUtf8()).isEqualTo("{\"videoId\":\"1\",\"transcript\":\"hello everybody\"}");
+        assertThat(received.getValue().getAttributesMap())
+                .doesNotContainKey(MessageAttributes.CLAIM_CHECK)
+                .containsEntry(MessageAttributes.EVENT_NAME, "video-analysed");
+    }
+
+    @Test
+    void nacksWhenTheEventCannotBeFetched() {
+        new ClaimCheckResolver(receiver, new FileSystemBlobStore(directory)).receiveMessage(claimChecked("video-analysed/missing"), consumer);
+
+        verify(consumer).nack();
+        verify(receiver, never()).receiveMessage(any(), any());
+    }
+
+    @Test
+    void nacksWhenThereIsNoBlobStore() {
+        new ClaimCheckResolver(receiver, null).receiveMessage(claimChecked("video-analysed/1"), consumer);
+
+        verify(consumer).nack();
+        verify(receiver, never()).receiveMessage(any(), any());
+    }
+
+    @Test
+    void passesOtherMessagesStraightThrough() {
+        PubsubMessage message = PubsubMessage.newBuilder().setData(ByteString.copyFromUtf8("{\"videoId\":\"1\"}")).build();
+
+        new ClaimCheckResolver(receiver, null).receiveMessage(message, consumer);
+
+        verify(receiver).receiveMessage(message, consumer);
+    }
+
+    private static PubsubMessage claimChecked(String key) {
+        return PubsubMessage.newBuilder()
+                .setData(ByteString.copyFromUtf8("{\"videoId\":\"1\"}"))
+                .putAttributes(MessageAttributes.EVENT_NAME, "video-analysed")
+                .putAttributes(MessageAttributes.CLAIM_CHECK, key)
+                .build();
+    }
+}
@@ -0,0 +1,123 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.google.api.gax.rpc.UnaryCallable;
+import com.google.cloud.pubsub.v1.MessageReceiver;
+import com.google.cloud.pubsub.v1.stub.SubscriberStub;
+import com.google.protobuf.Empty;
+import com.google.pubsub.v1.AcknowledgeRequest;
+import com.google.pubsub.v1.ModifyAckDeadlineRequest;
+import com.google.pubsub.v1.ProjectSubscriptionName;
+import com.google.pubsub.v1.PubsubMessage;
+import com.google.pubsub.v1.PullRequest;
+import com.google.pubsub.v1.PullResponse;
+import com.google.pubsub.v1.ReceivedMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeadLetterReplayerTest {
+
+    private final ProjectSubscriptionName deadLetterSubscription = ProjectSubscriptionName.of("project", "video-updated.group.dead-letter");
+    private final SubscriberStub stub = mock(SubscriberStub.class);
+    private UnaryCallable<PullRequest, PullResponse> pull;
+    private UnaryCallable<AcknowledgeRequest, Empty> acknowledge;
+    private UnaryCallable<ModifyAckDeadlineRequest, Empty> modifyAckDeadline;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        pull = mock(UnaryCallable.class);
+        acknowledge = mock(UnaryCallable.class);
+        modifyAckDeadline = mock(UnaryCallable.class);
+        when(stub.pullCallable()).thenReturn(pull);
+        when(stub.acknowledgeCallable()).thenReturn(acknowledge);
+        when(stub.modifyAckDeadlineCallable()).thenReturn(modifyAckDeadline);
+    }
+
+    @Test
+    void acknowledgesHandledMessagesUntilSubscriptionIsDrained() throws IOException {
+        when(pull.call(any())).thenReturn(response("a", "b"), response("c"), response());
+        MessageReceiver receiver = (message, consumer) -> consumer.ack();
+
+        int replayed = new DeadLetterReplayer(stub).replay(deadLetterSubscription, receiver, 10, 2);
+
+        assertThat(replayed).isEqualTo(3);
+        verify(acknowledge, times(2)).call(any());
+        verify(modifyAckDeadline, never()).call(any());
+    }
+
+    @Test
+    void stopsAtMaxMessages() throws IOException {
+        when(pull.call(any())).thenReturn(response("a", "b"));
+        MessageReceiver receiver = (message, consumer) -> consumer.ack();
+
+        int replayed = new DeadLetterReplayer(stub).replay(deadLetterSubscription, receiver, 2, 100);
+
+        assertThat(replayed).isEqualTo(2);
+        ArgumentCaptor<PullRequest> request = ArgumentCaptor.forClass(PullRequest.class);
+        verify(pull).call(request.capture());
+        assertThat(request.getValue().getMaxMessages()).isEqualTo(2);
+    }
+
+    @Test
+    void releasesFailedMessagesAndCarriesOn() throws IOException {
+        when(pull.call(any())).thenReturn(response("a", "b"), response("b", "c"), response());
+        AtomicInteger attempts = new AtomicInteger();
+        MessageReceiver receiver = (message, consumer) -> {
+            if (message.getMessageId().equals("b") && attempts.incrementAndGet() == 1) {
+                consumer.nack();
+            } else {
+                consumer.ack();
+            }
+        };
+
+        int replayed = new DeadLetterReplayer(stub).replay(deadLetterSubscription, receiver, 10, 2);
+
+        assertThat(replayed).isEqualTo(3);
+        ArgumentCaptor<ModifyAckDeadlineRequest> released = ArgumentCaptor.forClass(ModifyAckDeadlineRequest.class);
+        verify(modifyAckDeadline).call(released.capture());
+        assertThat(released.getValue().getAckIdsList()).containsExactly("ack-b");
+        assertThat(released.getValue().getAckDeadlineSeconds()).isZero();
+    }
+
+    @Test
+    void skipsMessagesThatKeepFailingWithoutBlockingTheRest() throws IOException {
+        when(pull.call(any())).thenReturn(response("poison"), response("poison"), response("poison"), response("a"), response());
+        MessageReceiver receiver = (message, consumer) -> {
+            if (message.getMessageId().equals("poison")) {
+                consumer.nack();
+            } else {
+                consumer.ack();
+            }
+        };
+
+        int replayed = new DeadLetterReplayer(stub).replay(deadLetterSubscription, receiver, 10, 1);
+
+        assertThat(replayed).isEqualTo(1);
+        ArgumentCaptor<ModifyAckDeadlineRequest> deadlines = ArgumentCaptor.forClass(ModifyAckDeadlineRequest.class);
+        verify(modifyAckDeadline, times(DeadLetterReplayer.MAX_REPLAY_FAILURES)).call(deadlines.capture());
+        assertThat(deadlines.getAllValues()).extracting(ModifyAckDeadlineRequest::getAckDeadlineSeconds).containsExactly(0, 0, 600);
+        verify(acknowledge).call(any());
+    }
+
+    private static PullResponse response(String... messageIds) {
+        PullResponse.Builder response = PullResponse.newBuilder();
+        for (String messageId : messageIds) {
+            response.addReceivedMessages(ReceivedMessage.newBuilder()
+                    .setAckId("ack-" + messageId)
+                    .setMessage(PubsubMessage.newBuilder().setMessageId(messageId).build()));
+        }
+        return response.build();
+    }
+}
@@ -0,0 +1,51 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.BoclipsEvent;
+import com.boclips.eventbus.config.InvalidMessagingConfiguration;
+import com.boclips.eventbus.domain.video.Video;
+import com.boclips.eventbus.domain.video.VideoId;
+import com.boclips.eventbus.events.collection.CollectionRenamed;
+import com.boclips.eventbus.events.video.VideoAnalysisRequested;
+import com.boclips.eventbus.events.video.VideoUpdated;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventPropertyReaderTest {
+
+    private final EventPropertyReader entityIds = EventPropertyReader.entityId();
+
+    @Test
+    void followsGetterPath() {
+        Video video = new Video();
+        video.setId(new VideoId("video-1"));
+        VideoUpdated event = VideoUpdated.of(video);
+
+        assertThat(entityIds.of(event)).isEqualTo("video-1");
+    }
+
+    @Test
+    void readsInheritedProperties() {
+        CollectionRenamed event = CollectionRenamed.builder().collectionId("collection-1").userId("user-1").collectionTitle("title").build();
+
+        assertThat(entityIds.of(event)).isEqualTo("collection-1");
+    }
+
+    @Test
+    void isNullWhenNotDeclaredOrValueMissing() {
+        assertThat(entityIds.of(VideoAnalysisRequested.builder().videoId("1").videoUrl("url").build())).isNull();
+        assertThat(entityIds.of(VideoUpdated.of(new Video()))).isNull();
+    }
+
+    @Test
+    void rejectsPathWithoutGetter() {
+        assertThatThrownBy(() -> entityIds.register(BrokenEvent.class))
+                .isInstanceOf(InvalidMessagingConfiguration.class)
+                .hasMessageContaining("missing");
+    }
+
+    @BoclipsEvent(value = "broken", entityId = "missing")
+    static class BrokenEvent {
+    }
+}
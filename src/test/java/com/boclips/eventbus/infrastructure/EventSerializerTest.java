@@ -0,0 +1,82 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.events.collection.CollectionVideosBulkChanged;
+import com.boclips.eventbus.events.video.VideoAnalysisRequested;
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventSerializerTest {
+
+    private final EventSerializer serializer = new EventSerializer();
+
+    private final VideoAnalysisRequested event = VideoAnalysisRequested.builder()
+            .videoId("video-id")
+            .videoUrl("https://example.com/video.mp4")
+            .build();
+
+    @Test
+    void serialiseToByteString_containsSameBytesAsSerialise() {
+        ByteString byteString = serializer.serialiseToByteString(event);
+
+        assertThat(byteString.toByteArray()).isEqualTo(serializer.serialise(event));
+    }
+
+    @Test
+    void serialiseToByteString_canBeRestored() {
+        ByteString byteString = serializer.serialiseToByteString(event);
+
+        assertThat(serializer.deserialise(event, byteString.toByteArray())).isEqualTo(event);
+    }
+
+    @Test
+    void deserialise_readsFromByteString() {
+        serializer.register(VideoAnalysisRequested.class);
+
+        VideoAnalysisRequested restored = serializer.deserialise(VideoAnalysisRequested.class, serializer.serialiseToByteString(event));
+
+        assertThat(restored).isEqualTo(event);
+    }
+
+    @Test
+    void deserialise_whenPayloadIsInvalid_throws() {
+        assertThatThrownBy(() -> serializer.deserialise(VideoAnalysisRequested.class, ByteString.copyFromUtf8("{not json")))
+                .hasMessageContaining("Failed de-serialising event of type VideoAnalysisRequested");
+    }
+
+    @Test
+    void deserialiseElements_readsTheListElementsOneByOne() {
+        CollectionVideosBulkChanged bulkChanged = CollectionVideosBulkChanged.builder()
+                .userId("user-id")
+                .collectionId("collection-id")
+                .videoIds(Arrays.asList("video-1", "video-2", "video-3"))
+                .build();
+
+        Iterable<String> videoIds = serializer.deserialiseElements(serializer.serialiseToByteString(bulkChanged), "videoIds", String.class);
+
+        Iterator<String> iterator = videoIds.iterator();
+        assertThat(iterator.next()).isEqualTo("video-1");
+        assertThat(iterator.hasNext()).isTrue();
+        assertThat(iterator).toIterable().containsExactly("video-2", "video-3");
+        assertThat(videoIds).containsExactly("video-1", "video-2", "video-3");
+    }
+
+    @Test
+    void deserialiseElements_whenListIsMissingOrNull_hasNoElements() {
+        assertThat(serializer.deserialiseElements(ByteString.copyFromUtf8("{\"userId\":\"user-id\",\"tags\":[{\"a\":[1]}]}"), "videoIds", String.class)).isEmpty();
+        assertThat(serializer.deserialiseElements(ByteString.copyFromUtf8("{\"videoIds\":null}"), "videoIds", String.class)).isEmpty();
+        assertThat(serializer.deserialiseElements(ByteString.copyFromUtf8("{\"videoIds\":[]}"), "videoIds", String.class)).isEmpty();
+    }
+
+    @Test
+    void deserialiseElements_whenPropertyIsNotAList_throws() {
+        Iterable<String> videoIds = serializer.deserialiseElements(ByteString.copyFromUtf8("{\"videoIds\":\"video-1\"}"), "videoIds", String.class);
+
+        assertThatThrownBy(videoIds::iterator).hasMessageContaining("Failed de-serialising videoIds");
+    }
+}
@@ -0,0 +1,165 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.events.order.LegacyOrderSubmitted;
+import com.boclips.eventbus.events.video.VideoAnalysed;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventValuesModuleTest {
+
+    private final ObjectMapper objectMapper = ObjectMapperProvider.get();
+    private final ObjectMapper standardMapper = standardMapper();
+
+    @Test
+    void writesZonedDateTimesLikeJavaTimeModule() throws IOException {
+        List<ZonedDateTime> values = Arrays.asList(
+                ZonedDateTime.parse("2019-12-07T13:12:11Z"),
+                ZonedDateTime.parse("2019-12-07T13:12:00Z"),
+                ZonedDateTime.parse("2020-03-01T10:15:30.123Z"),
+                ZonedDateTime.parse("2020-03-01T10:15:30.000000001Z"),
+                ZonedDateTime.parse("2020-03-01T10:15:30.12345Z"),
+                ZonedDateTime.of(2020, 3, 1, 10, 15, 30, 0, ZoneId.of("UTC")),
+                ZonedDateTime.of(2020, 7, 1, 10, 15, 30, 0, ZoneId.of("Europe/London")),
+                ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneId.of("America/St_Johns")),
+                ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneOffset.ofHoursMinutesSeconds(1, 2, 3)),
+                ZonedDateTime.of(12020, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC)
+        );
+
+        for (ZonedDateTime value : values) {
+            assertThat(objectMapper.writeValueAsString(value)).isEqualTo(standardMapper.writeValueAsString(value));
+        }
+    }
+
+    @Test
+    void readsZonedDateTimesLikeJavaTimeModule() throws IOException {
+        List<String> values = Arrays.asList(
+                "\"2019-12-07T13:12:11Z\"",
+                "\"2020-03-01T10:15:30.123Z\"",
+                "\"2020-03-01T10:15:30.123456789Z\"",
+                "\"2020-03-01T10:15:30+01:00\"",
+                "\"2020-03-01T10:15:30.5-03:30\"",
+                "\"2020-03-01T10:15:30+01:00[Europe/Paris]\"",
+                "\"2020-03-01T10:15Z\"",
+                "1583057730",
+                "1583057730.123"
+        );
+
+        for (String value : values) {
+            ZonedDateTime read = objectMapper.readValue(value, ZonedDateTime.class);
+
+            assertThat(read).as(value).isEqualTo(standardMapper.readValue(value, ZonedDateTime.class));
+            assertThat(read.getZone()).as(value).isEqualTo(ZoneId.of("UTC"));
+        }
+    }
+
+    @Test
+    void readsZonedDateTimesInTheirOwnOffsetWhenNotAdjusting() throws IOException {
+        ObjectMapper objectMapper = ObjectMapperProvider.get().disable(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE);
+
+        ZonedDateTime read = objectMapper.readValue("\"2020-03-01T10:15:30+01:00\"", ZonedDateTime.class);
+
+        assertThat(read).isEqualTo(ZonedDateTime.of(2020, 3, 1, 10, 15, 30, 0, ZoneOffset.ofHours(1)));
+    }
+
+    @Test
+    void rejectsInvalidZonedDateTimesLikeJavaTimeModule() {
+        assertThatThrownBy(() -> objectMapper.readValue("\"2020-02-30T10:15:30Z\"", ZonedDateTime.class))
+                .isInstanceOf(standardMapperFailure("\"2020-02-30T10:15:30Z\"", ZonedDateTime.class));
+    }
+
+    @Test
+    void writesAndReadsLocalDatesLikeJavaTimeModule() throws IOException {
+        for (LocalDate value : Arrays.asList(LocalDate.of(2020, 1, 12), LocalDate.of(1, 1, 1), LocalDate.of(10000, 1, 1))) {
+            String json = objectMapper.writeValueAsString(value);
+
+            assertThat(json).isEqualTo(standardMapper.writeValueAsString(value));
+            assertThat(objectMapper.readValue(json, LocalDate.class)).isEqualTo(value);
+        }
+        for (String value : Arrays.asList("\"2021-01-22\"", "[2021,1,22]")) {
+            assertThat(objectMapper.readValue(value, LocalDate.class)).as(value).isEqualTo(standardMapper.readValue(value, LocalDate.class));
+        }
+    }
+
+    @Test
+    void writesAndReadsLocalesLikeJackson() throws IOException {
+        for (Locale value : Arrays.asList(Locale.US, Locale.forLanguageTag("pl-PL"), Locale.ENGLISH, Locale.ROOT)) {
+            String json = objectMapper.writeValueAsString(value);
+
+            assertThat(json).isEqualTo(standardMapper.writeValueAsString(value));
+            assertThat(objectMapper.readValue(json, Locale.class)).isEqualTo(value);
+        }
+        for (String value : Arrays.asList("\"en-US\"", "\"en_US\"", "\"pl\"", "\"\"")) {
+            assertThat(objectMapper.readValue(value, Locale.class)).as(value).isEqualTo(standardMapper.readValue(value, Locale.class));
+            assertThat(objectMapper.readValue(value, Locale.class)).as(value).isSameAs(objectMapper.readValue(value, Locale.class));
+        }
+    }
+
+    @Test
+    void writesAndReadsCurrenciesLikeJackson() throws IOException {
+        String json = objectMapper.writeValueAsString(Currency.getInstance("GBP"));
+
+        assertThat(json).isEqualTo(standardMapper.writeValueAsString(Currency.getInstance("GBP")));
+        assertThat(objectMapper.readValue(json, Currency.class)).isEqualTo(Currency.getInstance("GBP"));
+        assertThatThrownBy(() -> objectMapper.readValue("\"XYZ\"", Currency.class))
+                .isInstanceOf(standardMapperFailure("\"XYZ\"", Currency.class));
+    }
+
+    @Test
+    void eventFixturesRoundTripToTheSameJson() throws IOException {
+        assertSameJson(fixture("analysed-video.json", VideoAnalysed.class));
+        assertSameJson(fixture("legacy-order.json", LegacyOrderSubmitted.class));
+    }
+
+    private void assertSameJson(Object event) throws IOException {
+        String json = objectMapper.writeValueAsString(event);
+
+        assertThat(json).isEqualTo(standardMapper.writeValueAsString(event));
+        assertThat(standardMapper.writeValueAsString(objectMapper.readValue(json, event.getClass()))).isEqualTo(json);
+    }
+
+    private <T> T fixture(String resource, Class<T> type) throws IOException {
+        try (InputStream stream = getClass().getClassLoader().getResourceAsStream(resource)) {
+            return standardMapper.readValue(stream, type);
+        }
+    }
+
+    private Class<? extends Throwable> standardMapperFailure(String json, Class<?> type) {
+        try {
+            standardMapper.readValue(json, type);
+        } catch (IOException e) {
+            return e.getClass();
+        }
+        throw new AssertionError("Expected " + json + " to be rejected");
+    }
+
+    /**
+     * The mapper as configured before the custom codecs.
+     */
+    private static ObjectMapper standardMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        objectMapper.configOverride(BigDecimal.class).setFormat(JsonFormat.Value.forShape(JsonFormat.Shape.STRING));
+        return objectMapper;
+    }
+}
@@ -0,0 +1,48 @@
+package com.boclips.eventbus.infrastructure;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileSystemBlobStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void getsWhatWasPut() throws IOException {
+        FileSystemBlobStore blobStore = new FileSystemBlobStore(directory);
+
+        blobStore.put("video-analysed/123", "hello".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(blobStore.get("video-analysed/123")).isEqualTo("hello".getBytes(StandardCharsets.UTF_8));
+        try (Stream<Path> files = Files.list(directory.resolve("video-analysed"))) {
+            assertThat(files).containsExactly(directory.resolve("video-analysed/123"));
+        }
+    }
+
+    @Test
+    void throwsForMissingBlobs() {
+        assertThatThrownBy(() -> new FileSystemBlobStore(directory).get("video-analysed/missing"))
+                .isInstanceOf(FileNotFoundException.class);
+    }
+
+    @Test
+    void rejectsKeysOutsideTheDirectory() {
+        FileSystemBlobStore blobStore = new FileSystemBlobStore(directory.resolve("blobs"));
+
+        assertThatThrownBy(() -> blobStore.put("../escaped", new byte[]{1}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> blobStore.get("/etc/passwd"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
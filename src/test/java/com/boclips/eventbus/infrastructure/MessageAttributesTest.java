@@ -0,0 +1,43 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.events.order.OrderUpdated;
+import com.boclips.eventbus.events.video.VideoAnalysisRequested;
+import com.boclips.eventbus.events.video.VideoInteractedWith;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageAttributesTest {
+
+    private final MessageAttributes messageAttributes = new MessageAttributes("video-service");
+
+    @Test
+    void describesTheEvent() {
+        Map<String, String> attributes = messageAttributes.of(VideoAnalysisRequested.builder().videoId("1").videoUrl("url").build());
+
+        assertThat(attributes)
+                .containsEntry(MessageAttributes.EVENT_NAME, "video-analysis-requested")
+                .containsEntry(MessageAttributes.SCHEMA_VERSION, "1")
+                .containsEntry(MessageAttributes.PRODUCER, "video-service")
+                .containsEntry(MessageAttributes.CONTENT_TYPE, "application/json")
+                .doesNotContainKey(MessageAttributes.TIMESTAMP);
+    }
+
+    @Test
+    void includesSubtypeOfEventsWithOne() {
+        VideoInteractedWith event = VideoInteractedWith.builder().userId("user-1").videoId("video-1").subtype("COPY_SHARE_LINK").build();
+
+        assertThat(messageAttributes.of(event)).containsEntry(MessageAttributes.SUBTYPE, "COPY_SHARE_LINK");
+    }
+
+    @Test
+    void includesTimestampOfEventsWithOne() {
+        OrderUpdated event = new OrderUpdated();
+        event.setTimestamp(ZonedDateTime.parse("2020-11-02T10:15:30+01:00"));
+
+        assertThat(messageAttributes.of(event)).containsEntry(MessageAttributes.TIMESTAMP, "2020-11-02T09:15:30Z");
+    }
+}
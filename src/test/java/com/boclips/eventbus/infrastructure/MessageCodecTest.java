@@ -0,0 +1,127 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.config.PayloadFormat;
+import com.boclips.eventbus.events.collection.CollectionVideosBulkChanged;
+import com.boclips.eventbus.events.video.VideoAnalysed;
+import com.boclips.eventbus.events.video.VideoSegmentPlayed;
+import com.google.protobuf.ByteString;
+import com.google.pubsub.v1.PubsubMessage;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageCodecTest {
+
+    private final MessageCodec codec = new MessageCodec();
+
+    private final VideoSegmentPlayed event = VideoSegmentPlayed.builder()
+            .timestamp(ZonedDateTime.parse("2020-03-01T10:15:30.123Z"))
+            .videoId("video-123")
+            .userId("user-456")
+            .videoIndex(3)
+            .segmentStartSeconds(10L)
+            .segmentEndSeconds(20L)
+            .build();
+
+    @Test
+    void decodesSmileMessages() {
+        ByteString smile = codec.encode(event, PayloadFormat.SMILE);
+
+        VideoSegmentPlayed decoded = codec.decode(VideoSegmentPlayed.class, message(smile, PayloadFormat.SMILE.getContentType()));
+
+        assertThat(decoded.getVideoId()).isEqualTo("video-123");
+        assertThat(decoded.getTimestamp().toInstant()).isEqualTo(event.getTimestamp().toInstant());
+        assertThat(smile.size()).isLessThan(codec.encode(event, PayloadFormat.JSON).size());
+    }
+
+    @Test
+    void decodesMessagesWithoutContentTypeAsJson() {
+        ByteString json = codec.encode(event, PayloadFormat.JSON);
+
+        assertThat(codec.decode(VideoSegmentPlayed.class, message(json, null)).getVideoId()).isEqualTo("video-123");
+    }
+
+    @Test
+    void encodesChunksWithinTheBudgetThatJoinBackIntoTheWholeEvent() {
+        CollectionVideosBulkChanged bulkChanged = bulkChanged(1000);
+
+        List<ByteString> chunks = codec.encodeChunks(bulkChanged, PayloadFormat.JSON, "videoIds", 4096);
+
+        assertThat(chunks.size()).isGreaterThan(1);
+        assertThat(chunks).allSatisfy(chunk -> assertThat(chunk.size()).isLessThanOrEqualTo(4096));
+        assertThat(chunks.stream()
+                .map(chunk -> codec.decode(CollectionVideosBulkChanged.class, message(chunk, null)))
+                .flatMap(chunk -> chunk.getVideoIds().stream())
+                .collect(Collectors.toList())).isEqualTo(bulkChanged.getVideoIds());
+
+        List<PubsubMessage> messages = chunks.stream().map(chunk -> message(chunk, null)).collect(Collectors.toList());
+        ByteString whole = codec.joinChunks(messages, "videoIds");
+        assertThat(codec.decode(CollectionVideosBulkChanged.class, message(whole, null))).isEqualTo(bulkChanged);
+    }
+
+    @Test
+    void encodesChunksInSmile() {
+        CollectionVideosBulkChanged bulkChanged = bulkChanged(1000);
+
+        List<ByteString> chunks = codec.encodeChunks(bulkChanged, PayloadFormat.SMILE, "videoIds", 4096);
+
+        List<PubsubMessage> messages = chunks.stream().map(chunk -> message(chunk, PayloadFormat.SMILE.getContentType())).collect(Collectors.toList());
+        assertThat(chunks.size()).isGreaterThan(1);
+        assertThat(codec.decode(CollectionVideosBulkChanged.class, message(codec.joinChunks(messages, "videoIds"), PayloadFormat.SMILE.getContentType())))
+                .isEqualTo(bulkChanged);
+    }
+
+    @Test
+    void encodesEventsWithinTheBudgetAsASingleChunk() {
+        CollectionVideosBulkChanged bulkChanged = bulkChanged(3);
+
+        assertThat(codec.encodeChunks(bulkChanged, PayloadFormat.JSON, "videoIds", 4096))
+                .containsExactly(codec.encode(bulkChanged, PayloadFormat.JSON));
+    }
+
+    @Test
+    void encodesEventsWithoutTheirLargeProperties() throws IOException {
+        VideoAnalysed videoAnalysed;
+        try (InputStream stream = getClass().getClassLoader().getResourceAsStream("analysed-video.json")) {
+            videoAnalysed = ObjectMapperProvider.get().readValue(stream, VideoAnalysed.class);
+        }
+
+        ByteString payload = codec.encodeWithout(videoAnalysed, PayloadFormat.JSON, Arrays.asList("transcript", "captions.content", "captions.missing.content"));
+        VideoAnalysed decoded = codec.decode(VideoAnalysed.class, message(payload, null));
+
+        assertThat(decoded.getVideoId()).isEqualTo(videoAnalysed.getVideoId());
+        assertThat(decoded.getTopics()).isEqualTo(videoAnalysed.getTopics());
+        assertThat(decoded.getCaptions().getFormat()).isEqualTo(videoAnalysed.getCaptions().getFormat());
+        assertThat(decoded.getTranscript()).isNull();
+        assertThat(decoded.getCaptions().getContent()).isNull();
+        assertThat(payload.size()).isLessThan(codec.encode(videoAnalysed, PayloadFormat.JSON).size());
+    }
+
+    private static CollectionVideosBulkChanged bulkChanged(int videoCount) {
+        List<String> videoIds = new ArrayList<>();
+        for (int i = 0; i < videoCount; i++) {
+            videoIds.add(String.format("5c542ab95438cdbcb56d%04x", i));
+        }
+        return CollectionVideosBulkChanged.builder()
+                .userId("user-456")
+                .collectionId("collection-1")
+                .videoIds(videoIds)
+                .build();
+    }
+
+    private static PubsubMessage message(ByteString data, String contentType) {
+        PubsubMessage.Builder message = PubsubMessage.newBuilder().setData(data);
+        if (contentType != null) {
+            message.putAttributes(MessageAttributes.CONTENT_TYPE, contentType);
+        }
+        return message.build();
+    }
+}
@@ -16,7 +16,11 @@ public class ObjectMapperProviderTest {
 
     private AnEvent event = new AnEvent();
 
-    private ObjectMapper objectMapper = ObjectMapperProvider.get();
+    private ObjectMapper objectMapper = objectMapper();
+
+    protected ObjectMapper objectMapper() {
+        return ObjectMapperProvider.get();
+    }
 
     @Test
     public void enumValuesAreWrittenAsStrings() throws JsonProcessingException {
@@ -0,0 +1,146 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.google.protobuf.ByteString;
+import com.google.pubsub.v1.PubsubMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutboxLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsAppendedMessagesInOrder() throws IOException {
+        try (OutboxLog log = new OutboxLog(directory, 4096, false)) {
+            log.append("video-updated", message("1"));
+            log.append("page-rendered", message("2"));
+
+            List<OutboxLog.Record> records = log.read(10);
+
+            assertThat(records).extracting(OutboxLog.Record::getTopicName).containsExactly("video-updated", "page-rendered");
+            assertThat(records).extracting(OutboxLog.Record::getMessage).containsExactly(message("1"), message("2"));
+            assertThat(log.read(10)).isEmpty();
+        }
+    }
+
+    @Test
+    void readsInBatches() throws IOException {
+        try (OutboxLog log = new OutboxLog(directory, 4096, false)) {
+            for (int i = 0; i < 5; i++) {
+                log.append("video-updated", message(String.valueOf(i)));
+            }
+
+            assertThat(dataOf(log.read(3))).containsExactly("0", "1", "2");
+            assertThat(dataOf(log.read(3))).containsExactly("3", "4");
+        }
+    }
+
+    @Test
+    void rewindsToTheLastCommit() throws IOException {
+        try (OutboxLog log = new OutboxLog(directory, 4096, false)) {
+            for (int i = 0; i < 3; i++) {
+                log.append("video-updated", message(String.valueOf(i)));
+            }
+            log.commit(log.read(1).get(0).getEnd());
+            log.read(10);
+
+            log.rewind();
+
+            assertThat(dataOf(log.read(10))).containsExactly("1", "2");
+        }
+    }
+
+    @Test
+    void resumesFromTheLastCommitWhenReopened() throws IOException {
+        try (OutboxLog log = new OutboxLog(directory, 4096, false)) {
+            for (int i = 0; i < 3; i++) {
+                log.append("video-updated", message(String.valueOf(i)));
+            }
+            log.commit(log.read(2).get(1).getEnd());
+        }
+
+        try (OutboxLog log = new OutboxLog(directory, 4096, false)) {
+            log.append("video-updated", message("3"));
+
+            assertThat(dataOf(log.read(10))).containsExactly("2", "3");
+        }
+    }
+
+    @Test
+    void rollsOverToNewSegmentsAndDeletesRelayedOnes() throws IOException {
+        try (OutboxLog log = new OutboxLog(directory, 256, false)) {
+            for (int i = 0; i < 20; i++) {
+                log.append("video-updated", message(String.valueOf(i)));
+            }
+            assertThat(segments()).hasSizeGreaterThan(2);
+            log.append("video-updated", message(repeat("x", 1000)));
+
+            List<OutboxLog.Record> records = log.read(100);
+            assertThat(records).hasSize(21);
+            log.commit(records.get(records.size() - 1).getEnd());
+
+            assertThat(segments()).hasSize(1);
+        }
+    }
+
+    @Test
+    void ignoresARecordTornByACrash() throws IOException {
+        try (OutboxLog log = new OutboxLog(directory, 4096, false)) {
+            log.append("video-updated", message("1"));
+            log.append("video-updated", message("2"));
+        }
+        try (FileChannel segment = FileChannel.open(segments().get(0), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // corrupt the last byte of the second record, as if it had only been partly written
+            ByteBuffer header = ByteBuffer.allocate(4);
+            segment.read(header, 0);
+            int secondRecord = 8 + header.getInt(0);
+            header.clear();
+            segment.read(header, secondRecord);
+            segment.write(ByteBuffer.wrap(new byte[]{42}), secondRecord + 8 + header.getInt(0) - 1);
+        }
+
+        try (OutboxLog log = new OutboxLog(directory, 4096, false)) {
+            log.append("video-updated", message("3"));
+
+            assertThat(dataOf(log.read(10))).containsExactly("1", "3");
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".segment")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static List<String> dataOf(List<OutboxLog.Record> records) {
+        return records.stream().map(record -> record.getMessage().getData().toStringUtf8()).collect(Collectors.toList());
+    }
+
+    private static PubsubMessage message(String data) {
+        return PubsubMessage.newBuilder()
+                .setData(ByteString.copyFromUtf8(data))
+                .putAttributes(MessageAttributes.EVENT_NAME, "video-updated")
+                .build();
+    }
+
+    private static String repeat(String value, int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,183 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.google.protobuf.ByteString;
+import com.google.pubsub.v1.PubsubMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class OutboxRelayTest {
+
+    @TempDir
+    Path directory;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final List<String> published = new CopyOnWriteArrayList<>();
+    private final AtomicInteger flushes = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void publishesAppendedEventsInOrderAndMovesOn() throws IOException {
+        try (OutboxLog log = new OutboxLog(directory, 4096, false)) {
+            relay(log, acknowledging()).start();
+
+            for (int i = 0; i < 5; i++) {
+                log.append("video-updated", message(String.valueOf(i)));
+            }
+
+            await().atMost(5, SECONDS).untilAsserted(() -> assertThat(published).containsExactly("0", "1", "2", "3", "4"));
+            assertThat(flushes.get()).isGreaterThan(0);
+        }
+    }
+
+    @Test
+    void publishesAFailedBatchAgain() throws IOException {
+        AtomicInteger attempts = new AtomicInteger();
+        BiFunction<String, PubsubMessage, CompletableFuture<String>> failingOnce = (topicName, message) -> {
+            if (attempts.incrementAndGet() == 2) {
+                CompletableFuture<String> failed = new CompletableFuture<>();
+                failed.completeExceptionally(new IllegalStateException("Pub/Sub unavailable"));
+                return failed;
+            }
+            return acknowledging().apply(topicName, message);
+        };
+
+        try (OutboxLog log = new OutboxLog(directory, 4096, false)) {
+            log.append("video-updated", message("1"));
+            log.append("video-updated", message("2"));
+
+            relay(log, failingOnce).start();
+
+            await().atMost(5, SECONDS).untilAsserted(() -> assertThat(published).containsExactly("1", "1", "2"));
+        }
+    }
+
+    @Test
+    void publishesABatchAgainWhenNotAcknowledgedInTime() throws IOException {
+        AtomicInteger attempts = new AtomicInteger();
+        BiFunction<String, PubsubMessage, CompletableFuture<String>> hangingOnce = (topicName, message) -> {
+            if (attempts.incrementAndGet() == 1) {
+                published.add(message.getData().toStringUtf8());
+                return new CompletableFuture<>();
+            }
+            return acknowledging().apply(topicName, message);
+        };
+
+        try (OutboxLog log = new OutboxLog(directory, 4096, false)) {
+            log.append("video-updated", message("1"));
+
+            relay(log, hangingOnce).start();
+
+            await().atMost(5, SECONDS).untilAsserted(() -> assertThat(published).containsExactly("1", "1"));
+        }
+    }
+
+    @Test
+    void parksAnEventThatKeepsFailingAndRelaysTheOnesBehindIt() throws Exception {
+        BiFunction<String, PubsubMessage, CompletableFuture<String>> rejectingPoison = (topicName, message) -> {
+            if (message.getData().toStringUtf8().equals("poison")) {
+                throw new IllegalStateException("Cannot publish a message with an ordering key when message ordering is not enabled");
+            }
+            return acknowledging().apply(topicName, message);
+        };
+
+        try (OutboxLog log = new OutboxLog(directory, 4096, false)) {
+            OutboxRelay relay = relay(log, rejectingPoison);
+            CompletableFuture<String> first = relay.append("video-updated", message("1"));
+            CompletableFuture<String> poison = relay.append("video-updated", message("poison"));
+            CompletableFuture<String> last = relay.append("video-updated", message("2"));
+
+            relay.start();
+
+            assertThat(last.get(5, SECONDS)).isNotNull();
+            assertThat(first).isCompleted();
+            assertThat(poison).isCompletedExceptionally();
+            assertThat(published).containsSubsequence("1", "2").doesNotContain("poison");
+            List<Path> parked;
+            try (Stream<Path> files = Files.list(directory.resolve("parked"))) {
+                parked = files.collect(Collectors.toList());
+            }
+            assertThat(parked).hasSize(1);
+            assertThat(PubsubMessage.parseFrom(Files.readAllBytes(parked.get(0))).getData().toStringUtf8()).isEqualTo("poison");
+        }
+    }
+
+    @Test
+    void completesAppendedEventWithMessageIdOnceRelayed() throws Exception {
+        try (OutboxLog log = new OutboxLog(directory, 4096, false)) {
+            OutboxRelay relay = relay(log, acknowledging());
+            relay.start();
+
+            CompletableFuture<String> first = relay.append("video-updated", message("1"));
+            CompletableFuture<String> second = relay.append("video-updated", message("2"));
+
+            assertThat(first.get(5, SECONDS)).isEqualTo("message-1");
+            assertThat(second.get(5, SECONDS)).isEqualTo("message-2");
+        }
+    }
+
+    @Test
+    void failsEventsThatWereNotRelayedWhenAbandoned() throws Exception {
+        try (OutboxLog log = new OutboxLog(directory, 4096, false)) {
+            OutboxRelay relay = relay(log, acknowledging());
+
+            CompletableFuture<String> messageId = relay.append("video-updated", message("1"));
+            relay.abandonPending();
+
+            assertThat(messageId).isCompletedExceptionally();
+            assertThat(log.read(10)).hasSize(1);
+        }
+    }
+
+    @Test
+    void stopsRelaying() throws Exception {
+        try (OutboxLog log = new OutboxLog(directory, 4096, false)) {
+            OutboxRelay relay = relay(log, acknowledging());
+            relay.start();
+            relay.stop();
+
+            log.append("video-updated", message("1"));
+
+            Thread.sleep(200);
+            assertThat(published).isEmpty();
+            assertThat(log.read(10)).hasSize(1);
+        }
+    }
+
+    private OutboxRelay relay(OutboxLog log, BiFunction<String, PubsubMessage, CompletableFuture<String>> publish) {
+        return new OutboxRelay(log, publish, flushes::incrementAndGet, 10, Duration.ofMillis(10), Duration.ofMillis(100), 3, scheduler);
+    }
+
+    private BiFunction<String, PubsubMessage, CompletableFuture<String>> acknowledging() {
+        return (topicName, message) -> {
+            published.add(message.getData().toStringUtf8());
+            return CompletableFuture.completedFuture("message-" + published.size());
+        };
+    }
+
+    private static PubsubMessage message(String data) {
+        return PubsubMessage.newBuilder().setData(ByteString.copyFromUtf8(data)).build();
+    }
+}
@@ -0,0 +1,130 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.config.BoclipsEventsProperties;
+import com.boclips.eventbus.config.PayloadFormat;
+import com.boclips.eventbus.config.TopicProperties;
+import com.boclips.eventbus.events.collection.CollectionDeleted;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.core.NoCredentialsProvider;
+import com.google.api.gax.grpc.GrpcTransportChannel;
+import com.google.api.gax.rpc.FixedTransportChannelProvider;
+import com.google.cloud.pubsub.v1.Publisher;
+import com.google.protobuf.ByteString;
+import com.google.pubsub.v1.PubsubMessage;
+import com.google.pubsub.v1.TopicName;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutgoingMessagesTest {
+
+    private final EventPropertyReader entityIds = EventPropertyReader.entityId();
+    private final ManagedChannel channel = ManagedChannelBuilder.forTarget("localhost:1").usePlaintext().build();
+
+    @AfterEach
+    void tearDown() {
+        channel.shutdownNow();
+    }
+
+    @Test
+    void usesEntityIdAsOrderingKeyOnlyWithMessageOrdering() {
+        CollectionDeleted event = CollectionDeleted.builder().collectionId("collection-1").userId("user-1").build();
+
+        assertThat(OutgoingMessages.orderingKey(entityIds, event, topicProperties(true))).isEqualTo("collection-1");
+        assertThat(OutgoingMessages.orderingKey(entityIds, event, topicProperties(false))).isNull();
+    }
+
+    @Test
+    void setsOrderingKeyOnMessage() {
+        PubsubMessage message = OutgoingMessages.message(PubsubMessage.newBuilder(), ByteString.copyFromUtf8("{}"), PayloadFormat.JSON, "collection-1", topicProperties(true));
+
+        assertThat(message.getOrderingKey()).isEqualTo("collection-1");
+    }
+
+    @Test
+    void leavesOrderingKeyEmptyWithoutOne() {
+        PubsubMessage message = OutgoingMessages.message(PubsubMessage.newBuilder(), ByteString.copyFromUtf8("{}"), PayloadFormat.JSON, null, topicProperties(false));
+
+        assertThat(message.getOrderingKey()).isEmpty();
+    }
+
+    @Test
+    void resumesPublishingForOrderingKeyWhenPublishFails() {
+        Publisher publisher = mock(Publisher.class);
+        when(publisher.publish(any())).thenReturn(ApiFutures.immediateFailedFuture(new IllegalStateException("unavailable")));
+
+        CompletableFuture<String> messageId = OutgoingMessages.send(publisher, PubsubMessage.newBuilder().setOrderingKey("collection-1").build());
+
+        assertThat(messageId).isCompletedExceptionally();
+        verify(publisher).resumePublish("collection-1");
+    }
+
+    @Test
+    void doesNotResumePublishingWithoutOrderingKey() {
+        Publisher publisher = mock(Publisher.class);
+        when(publisher.publish(any())).thenReturn(ApiFutures.immediateFailedFuture(new IllegalStateException("unavailable")));
+
+        OutgoingMessages.send(publisher, PubsubMessage.getDefaultInstance());
+
+        verify(publisher, never()).resumePublish(anyString());
+    }
+
+    @Test
+    void enablesMessageOrderingOnPublisherWhenConfigured() throws InterruptedException {
+        Publisher publisher = publisher(topicProperties(true));
+        try {
+            assertThatCode(() -> publisher.publish(PubsubMessage.newBuilder().setOrderingKey("collection-1").build())).doesNotThrowAnyException();
+        } finally {
+            shutdown(publisher);
+        }
+    }
+
+    @Test
+    void doesNotEnableMessageOrderingOnPublisherOtherwise() throws InterruptedException {
+        Publisher publisher = publisher(topicProperties(false));
+        try {
+            assertThatThrownBy(() -> publisher.publish(PubsubMessage.newBuilder().setOrderingKey("collection-1").build())).isInstanceOf(IllegalStateException.class);
+        } finally {
+            shutdown(publisher);
+        }
+    }
+
+    private Publisher publisher(TopicProperties topicProperties) {
+        try {
+            return OutgoingMessages.publisher(TopicName.of("project", "collection-deleted"), topicProperties)
+                    .setCredentialsProvider(NoCredentialsProvider.create())
+                    .setChannelProvider(FixedTransportChannelProvider.create(GrpcTransportChannel.create(channel)))
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void shutdown(Publisher publisher) throws InterruptedException {
+        publisher.shutdown();
+        publisher.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private static TopicProperties topicProperties(boolean messageOrdering) {
+        BoclipsEventsProperties properties = new BoclipsEventsProperties();
+        TopicProperties topicProperties = new TopicProperties();
+        topicProperties.setMessageOrdering(messageOrdering);
+        properties.getTopics().put("collection-deleted", topicProperties);
+        return properties.forTopic("collection-deleted");
+    }
+}
@@ -0,0 +1,73 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.config.Compression;
+import com.google.cloud.pubsub.v1.AckReplyConsumer;
+import com.google.cloud.pubsub.v1.MessageReceiver;
+import com.google.protobuf.ByteString;
+import com.google.pubsub.v1.PubsubMessage;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class PayloadCompressionTest {
+
+    private final ByteString payload = ByteString.copyFromUtf8(repeat("{\"videoId\":\"5c542ab95438cdbcb56d0001\"},", 1000));
+
+    @Test
+    void gzipRoundTrips() {
+        ByteString compressed = PayloadCompression.compress(payload, Compression.GZIP);
+
+        assertThat(compressed.size()).isLessThan(payload.size() / 10);
+        assertThat(PayloadCompression.decompress(compressed, "gzip")).isEqualTo(payload);
+    }
+
+    @Test
+    void leavesUncompressedPayloadsAlone() {
+        assertThat(PayloadCompression.compress(payload, Compression.NONE)).isSameAs(payload);
+        assertThat(PayloadCompression.decompress(payload, null)).isSameAs(payload);
+        assertThat(PayloadCompression.decompress(payload, "identity")).isSameAs(payload);
+    }
+
+    @Test
+    void receiverGetsDecompressedMessage() {
+        MessageReceiver receiver = mock(MessageReceiver.class);
+        AckReplyConsumer consumer = mock(AckReplyConsumer.class);
+        PubsubMessage message = PubsubMessage.newBuilder()
+                .setData(PayloadCompression.compress(payload, Compression.GZIP))
+                .putAttributes(MessageAttributes.CONTENT_ENCODING, "gzip")
+                .putAttributes(MessageAttributes.EVENT_NAME, "videos-updated")
+                .build();
+
+        PayloadCompression.decompressing(receiver).receiveMessage(message, consumer);
+
+        ArgumentCaptor<PubsubMessage> received = ArgumentCaptor.forClass(PubsubMessage.class);
+        verify(receiver).receiveMessage(received.capture(), eq(consumer));
+        assertThat(received.getValue().getData()).isEqualTo(payload);
+        assertThat(received.getValue().getAttributesMap())
+                .containsEntry(MessageAttributes.EVENT_NAME, "videos-updated")
+                .doesNotContainKey(MessageAttributes.CONTENT_ENCODING);
+    }
+
+    @Test
+    void receiverGetsUncompressedMessageAsItIs() {
+        MessageReceiver receiver = mock(MessageReceiver.class);
+        PubsubMessage message = PubsubMessage.newBuilder().setData(payload).build();
+
+        PayloadCompression.decompressing(receiver).receiveMessage(message, mock(AckReplyConsumer.class));
+
+        verify(receiver).receiveMessage(eq(message), any());
+    }
+
+    private static String repeat(String text, int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+}
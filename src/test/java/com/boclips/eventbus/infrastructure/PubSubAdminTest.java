@@ -0,0 +1,85 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.config.BoclipsEventsProperties;
+import com.boclips.eventbus.config.TopicProperties;
+import com.google.api.gax.grpc.GrpcStatusCode;
+import com.google.api.gax.rpc.PermissionDeniedException;
+import com.google.cloud.pubsub.v1.SubscriptionAdminClient;
+import com.google.pubsub.v1.DeadLetterPolicy;
+import com.google.pubsub.v1.ProjectSubscriptionName;
+import com.google.pubsub.v1.RetryPolicy;
+import com.google.pubsub.v1.Subscription;
+import com.google.pubsub.v1.TopicName;
+import com.google.pubsub.v1.UpdateSubscriptionRequest;
+import io.grpc.Status;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PubSubAdminTest {
+
+    private final PubSubAdmin admin = new PubSubAdmin("project");
+    private final SubscriptionAdminClient subscriptionAdmin = mock(SubscriptionAdminClient.class);
+    private final ProjectSubscriptionName subscriptionName = ProjectSubscriptionName.of("project", "video-updated.service");
+    private final TopicName topicName = TopicName.of("project", "video-updated");
+    private final Subscription existing = Subscription.newBuilder()
+            .setName(subscriptionName.toString())
+            .setTopic(topicName.toString())
+            .setDeadLetterPolicy(DeadLetterPolicy.newBuilder().setDeadLetterTopic("projects/project/topics/set-up-by-ops").setMaxDeliveryAttempts(7))
+            .build();
+
+    @Test
+    void leavesSubscriptionsAloneWhenNoPolicyIsConfigured() {
+        Subscription wanted = subscription(new TopicProperties(), null);
+
+        Subscription subscription = admin.updateFailurePoliciesIfChanged(subscriptionAdmin, existing, wanted);
+
+        assertThat(subscription.hasDeadLetterPolicy()).isTrue();
+        assertThat(wanted.hasRetryPolicy()).isFalse();
+        assertThat(wanted.hasDeadLetterPolicy()).isFalse();
+        verify(subscriptionAdmin, never()).updateSubscription(any(UpdateSubscriptionRequest.class));
+    }
+
+    @Test
+    void updatesOnlyTheConfiguredPolicy() {
+        TopicProperties configured = new TopicProperties();
+        configured.setMinimumRedeliveryBackoff(Duration.ofSeconds(30));
+
+        admin.updateFailurePoliciesIfChanged(subscriptionAdmin, existing, subscription(configured, null));
+
+        ArgumentCaptor<UpdateSubscriptionRequest> request = ArgumentCaptor.forClass(UpdateSubscriptionRequest.class);
+        verify(subscriptionAdmin).updateSubscription(request.capture());
+        assertThat(request.getValue().getUpdateMask().getPathsList()).containsExactly("retry_policy");
+        assertThat(request.getValue().getSubscription().getRetryPolicy()).isEqualTo(RetryPolicy.newBuilder()
+                .setMinimumBackoff(com.google.protobuf.Duration.newBuilder().setSeconds(30))
+                .build());
+    }
+
+    @Test
+    void keepsTheSubscriptionAsItIsWhenNotAllowedToUpdateIt() {
+        TopicProperties configured = new TopicProperties();
+        configured.setMaxDeliveryAttempts(5);
+        when(subscriptionAdmin.updateSubscription(any(UpdateSubscriptionRequest.class)))
+                .thenThrow(new PermissionDeniedException(new RuntimeException("denied"), GrpcStatusCode.of(Status.Code.PERMISSION_DENIED), false));
+
+        Subscription subscription = admin.updateFailurePoliciesIfChanged(subscriptionAdmin, existing, subscription(configured, TopicName.of("project", "video-updated.service.dead-letter")));
+
+        verify(subscriptionAdmin).updateSubscription(any(UpdateSubscriptionRequest.class));
+        assertThat(subscription).isEqualTo(existing);
+    }
+
+    private Subscription subscription(TopicProperties configured, TopicName deadLetterTopicName) {
+        BoclipsEventsProperties properties = new BoclipsEventsProperties();
+        properties.getTopics().put("video-updated", configured);
+        return PubSubAdmin.subscription(subscriptionName, topicName, deadLetterTopicName, properties.forTopic("video-updated"), new AttributeFilter(Collections.emptyMap()));
+    }
+}
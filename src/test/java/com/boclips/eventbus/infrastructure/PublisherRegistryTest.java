@@ -0,0 +1,83 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.google.cloud.pubsub.v1.Publisher;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class PublisherRegistryTest {
+
+    @Test
+    void get_createsOnePublisherPerTopicUnderContention() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        PublisherRegistry registry = new PublisherRegistry(topicName -> {
+            created.incrementAndGet();
+            return mock(Publisher.class);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Publisher>> results = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            results.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return registry.get("video-updated");
+            }, executor));
+        }
+        start.countDown();
+
+        Publisher first = results.get(0).get();
+        for (CompletableFuture<Publisher> result : results) {
+            assertThat(result.get()).isSameAs(first);
+        }
+        assertThat(created).hasValue(1);
+        executor.shutdown();
+    }
+
+    @Test
+    void get_whenCreationFails_retriesOnNextCall() {
+        AtomicInteger attempts = new AtomicInteger();
+        PublisherRegistry registry = new PublisherRegistry(topicName -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("topic creation failed");
+            }
+            return mock(Publisher.class);
+        });
+
+        assertThatThrownBy(() -> registry.get("video-updated")).hasMessage("topic creation failed");
+        assertThat(registry.get("video-updated")).isNotNull();
+    }
+
+    @Test
+    void forEachCreated_onlyVisitsCreatedPublishers() {
+        PublisherRegistry registry = new PublisherRegistry(topicName -> {
+            if (topicName.equals("broken")) {
+                throw new IllegalStateException("topic creation failed");
+            }
+            return mock(Publisher.class);
+        });
+        Publisher publisher = registry.get("video-updated");
+        assertThatThrownBy(() -> registry.get("broken"));
+
+        Map<String, Publisher> visited = new HashMap<>();
+        registry.forEachCreated(visited::put);
+
+        assertThat(visited).containsOnlyKeys("video-updated").containsValue(publisher);
+    }
+}
@@ -0,0 +1,179 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.EventHandler;
+import com.boclips.eventbus.config.PayloadFormat;
+import com.boclips.eventbus.events.video.VideoAnalysisRequested;
+import com.google.cloud.pubsub.v1.AckReplyConsumer;
+import com.google.protobuf.ByteString;
+import com.google.pubsub.v1.PubsubMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class RetryingReceiverTest {
+
+    private final MessageCodec codec = new MessageCodec();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final AckReplyConsumer consumer = mock(AckReplyConsumer.class);
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void acksHandledMessage() {
+        receiver(failingTimes(0), false).receiveMessage(message("1"), consumer);
+
+        assertThat(attempts).hasValue(1);
+        verify(consumer).ack();
+    }
+
+    @Test
+    void retriesFailingHandlerAndAcksOnceItSucceeds() {
+        receiver(failingTimes(2), false).receiveMessage(message("1"), consumer);
+
+        await().atMost(5, SECONDS).untilAsserted(() -> verify(consumer).ack());
+        assertThat(attempts).hasValue(3);
+        verify(consumer, never()).nack();
+    }
+
+    @Test
+    void nacksOnceRetriesAreExhausted() {
+        receiver(failingTimes(Integer.MAX_VALUE), false).receiveMessage(message("1"), consumer);
+
+        await().atMost(5, SECONDS).untilAsserted(() -> verify(consumer).nack());
+        assertThat(attempts).hasValue(3);
+        verify(consumer, never()).ack();
+    }
+
+    @Test
+    void dropsUndecodableMessageWithoutDeadLettering() {
+        receiver(failingTimes(0), false).receiveMessage(undecodableMessage(), consumer);
+
+        assertThat(attempts).hasValue(0);
+        verify(consumer).ack();
+    }
+
+    @Test
+    void nacksUndecodableMessageWithDeadLettering() {
+        receiver(failingTimes(0), true).receiveMessage(undecodableMessage(), consumer);
+
+        assertThat(attempts).hasValue(0);
+        verify(consumer).nack();
+    }
+
+    @Test
+    void handlesNoMoreEventsAtOnceThanThereArePermits() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+        RetryingReceiver<VideoAnalysisRequested> receiver = new RetryingReceiver<>("subscription", VideoAnalysisRequested.class, codec, event -> {
+            mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(5);
+            running.decrementAndGet();
+        }, 2, Duration.ofMillis(10), false, Runnable::run, scheduler, null, null, new Semaphore(2));
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+
+        for (int i = 0; i < 40; i++) {
+            String videoId = String.valueOf(i);
+            threads.execute(() -> receiver.receiveMessage(message(videoId), consumer));
+        }
+        threads.shutdown();
+
+        assertThat(threads.awaitTermination(5, SECONDS)).isTrue();
+        verify(consumer, times(40)).ack();
+        assertThat(mostRunning.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void eventWaitingForRetryHoldsNoPermit() {
+        RetryingReceiver<VideoAnalysisRequested> receiver = new RetryingReceiver<>("subscription", VideoAnalysisRequested.class, codec, event -> {
+            if (event.getVideoId().equals("failing")) {
+                throw new IllegalStateException("downstream unavailable");
+            }
+        }, 2, Duration.ofMinutes(1), false, Runnable::run, scheduler, null, null, new Semaphore(1));
+        AckReplyConsumer other = mock(AckReplyConsumer.class);
+
+        receiver.receiveMessage(message("failing"), consumer);
+        receiver.receiveMessage(message("1"), other);
+
+        verify(other).ack();
+        verify(consumer, never()).ack();
+    }
+
+    @Test
+    void retriesOnTheSubscriptionExecutorWithoutOverlappingLaterDeliveries() {
+        ExecutorService subscription = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "subscription"));
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+        List<String> handlingThreads = new CopyOnWriteArrayList<>();
+        AckReplyConsumer other = mock(AckReplyConsumer.class);
+        RetryingReceiver<VideoAnalysisRequested> receiver = new RetryingReceiver<>("subscription", VideoAnalysisRequested.class, codec, event -> {
+            mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            handlingThreads.add(Thread.currentThread().getName());
+            try {
+                if (event.getVideoId().equals("failing") && attempts.incrementAndGet() == 1) {
+                    throw new IllegalStateException("downstream unavailable");
+                }
+                sleep(50);
+            } finally {
+                running.decrementAndGet();
+            }
+        }, 2, Duration.ofMillis(10), false, subscription, scheduler);
+
+        subscription.execute(() -> receiver.receiveMessage(message("failing"), consumer));
+        subscription.execute(() -> receiver.receiveMessage(message("1"), other));
+
+        await().atMost(5, SECONDS).untilAsserted(() -> verify(consumer).ack());
+        verify(other).ack();
+        assertThat(mostRunning).hasValue(1);
+        assertThat(handlingThreads).hasSize(3).containsOnly("subscription");
+        subscription.shutdownNow();
+    }
+
+    private RetryingReceiver<VideoAnalysisRequested> receiver(EventHandler<VideoAnalysisRequested> handler, boolean deadLettering) {
+        return new RetryingReceiver<>("subscription", VideoAnalysisRequested.class, codec, handler, 2, Duration.ofMillis(10), deadLettering, Runnable::run, scheduler);
+    }
+
+    private EventHandler<VideoAnalysisRequested> failingTimes(int failures) {
+        return event -> {
+            if (attempts.incrementAndGet() <= failures) {
+                throw new IllegalStateException("downstream unavailable");
+            }
+        };
+    }
+
+    private PubsubMessage message(String videoId) {
+        VideoAnalysisRequested event = VideoAnalysisRequested.builder().videoId(videoId).videoUrl("url").build();
+        return PubsubMessage.newBuilder().setData(codec.encode(event, PayloadFormat.JSON)).build();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private PubsubMessage undecodableMessage() {
+        return PubsubMessage.newBuilder().setData(ByteString.copyFromUtf8("{not json")).build();
+    }
+}
@@ -0,0 +1,92 @@
+package com.boclips.eventbus.infrastructure;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class StripedExecutorTest {
+
+    private final ExecutorService threads = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        threads.shutdownNow();
+    }
+
+    @Test
+    void runsTasksWithTheSameKeyInSubmissionOrder() {
+        StripedExecutor executor = new StripedExecutor(4);
+        List<Integer> handled = new CopyOnWriteArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            int task = i;
+            executor.execute("video-1", () -> handled.add(task));
+        }
+
+        assertThat(handled).hasSize(100).isSorted();
+    }
+
+    @Test
+    void doesNotRunTasksWithTheSameKeyConcurrently() {
+        StripedExecutor executor = new StripedExecutor(4);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+        AtomicInteger done = new AtomicInteger();
+
+        for (int i = 0; i < 50; i++) {
+            threads.execute(() -> executor.execute("video-1", () -> {
+                mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(1);
+                running.decrementAndGet();
+                done.incrementAndGet();
+            }));
+        }
+
+        await().atMost(5, SECONDS).untilAsserted(() -> assertThat(done).hasValue(50));
+        assertThat(mostRunning).hasValue(1);
+    }
+
+    @Test
+    void runsTasksInDifferentLanesConcurrently() throws InterruptedException {
+        StripedExecutor executor = new StripedExecutor(2);
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        CountDownLatch done = new CountDownLatch(2);
+
+        for (int lane = 0; lane < 2; lane++) {
+            int key = lane;
+            threads.execute(() -> executor.execute(key, () -> {
+                bothStarted.countDown();
+                awaitQuietly(bothStarted);
+                done.countDown();
+            }));
+        }
+
+        assertThat(done.await(5, SECONDS)).isTrue();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
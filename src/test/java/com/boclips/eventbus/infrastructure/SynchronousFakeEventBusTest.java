@@ -1,6 +1,8 @@
 package com.boclips.eventbus.infrastructure;
 
 import com.boclips.eventbus.BoclipsEvent;
+import com.boclips.eventbus.ConflictingSubscriberException;
+import com.boclips.eventbus.config.InvalidMessagingConfiguration;
 import com.boclips.eventbus.domain.AgeRange;
 import com.boclips.eventbus.domain.contentpartner.ChannelId;
 import com.boclips.eventbus.domain.video.PlaybackProviderType;
@@ -8,13 +10,18 @@ import com.boclips.eventbus.domain.video.Video;
 import com.boclips.eventbus.domain.video.VideoId;
 import com.boclips.eventbus.domain.video.VideoType;
 import com.boclips.eventbus.events.video.VideoAnalysed;
+import com.boclips.eventbus.events.video.VideoInteractedWith;
 import com.boclips.eventbus.events.video.VideoUpdated;
+import com.boclips.eventbus.events.video.VideosUpdated;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -51,6 +58,85 @@ class SynchronousFakeEventBusTest {
         assertThat(synchronousFakeEventBus.getReceivedEvents()).containsExactly(event);
     }
 
+    @Test
+    void publishAsync_completesWithMessageIds() {
+        List<String> messageIds = synchronousFakeEventBus.publishAsync(Arrays.asList(anEvent(), anEvent())).join();
+
+        assertThat(messageIds).hasSize(2).doesNotHaveDuplicates();
+        assertThat(synchronousFakeEventBus.publishAsync(anEvent()).join()).isNotIn(messageIds);
+        assertThat(synchronousFakeEventBus.countEventsOfType(VideoUpdated.class)).isEqualTo(4);
+    }
+
+    @Test
+    void subscribeBatch_receivesEventsPublishedTogetherAsOneBatch() {
+        List<List<VideoUpdated>> batches = new ArrayList<>();
+        synchronousFakeEventBus.subscribeBatch(VideoUpdated.class, batches::add);
+
+        synchronousFakeEventBus.publish(Arrays.asList(anEvent(), anEvent()));
+        synchronousFakeEventBus.publish(anEvent());
+
+        assertThat(batches).extracting(List::size).containsExactly(2, 1);
+    }
+
+    @Test
+    void subscribeBatch_whenAlreadySubscribed_throws() {
+        synchronousFakeEventBus.subscribe(VideoUpdated.class, event -> {
+        });
+
+        assertThatThrownBy(() -> synchronousFakeEventBus.subscribeBatch(VideoUpdated.class, events -> {
+        })).isInstanceOf(ConflictingSubscriberException.class);
+    }
+
+    @Test
+    void subscribe_withSubtypes_receivesOnlyThoseSubtypes() {
+        List<VideoInteractedWith> received = new ArrayList<>();
+        synchronousFakeEventBus.subscribe(VideoInteractedWith.class, Collections.singleton("COPY_SHARE_LINK"), received::add);
+
+        synchronousFakeEventBus.publish(anInteraction("COPY_SHARE_LINK"));
+        synchronousFakeEventBus.publish(anInteraction("NAVIGATE_TO_VIDEO"));
+
+        assertThat(received).extracting(VideoInteractedWith::getSubtype).containsExactly("COPY_SHARE_LINK");
+        assertThat(synchronousFakeEventBus.countEventsOfType(VideoInteractedWith.class)).isEqualTo(2);
+    }
+
+    @Test
+    void subscribeBatch_withSubtypes_whenAllEventsAreFilteredOut_doesNotCallHandler() {
+        List<List<VideoInteractedWith>> batches = new ArrayList<>();
+        synchronousFakeEventBus.subscribeBatch(VideoInteractedWith.class, Collections.singleton("COPY_SHARE_LINK"), batches::add);
+
+        synchronousFakeEventBus.publish(anInteraction("NAVIGATE_TO_VIDEO"));
+
+        assertThat(batches).isEmpty();
+    }
+
+    @Test
+    void subscribe_withSubtypes_whenEventDeclaresNoSubtype_throws() {
+        assertThatThrownBy(() -> synchronousFakeEventBus.subscribe(VideoUpdated.class, Collections.singleton("ANY"), event -> {
+        })).isInstanceOf(InvalidMessagingConfiguration.class);
+    }
+
+    @Test
+    void subscribeElements_receivesTheElementsOfEachEvent() {
+        List<String> received = new ArrayList<>();
+        synchronousFakeEventBus.subscribeElements(VideosUpdated.class, Video.class, videos -> videos.forEachRemaining(video -> received.add(video.getPlaybackId())));
+
+        synchronousFakeEventBus.publish(new VideosUpdated(Arrays.asList(anEvent().getVideo(), anEvent().getVideo())));
+
+        assertThat(received).containsExactly("some-playback-id", "some-playback-id");
+    }
+
+    @Test
+    void subscribeElements_whenElementTypeDoesNotMatch_throws() {
+        assertThatThrownBy(() -> synchronousFakeEventBus.subscribeElements(VideosUpdated.class, String.class, videoIds -> {
+        })).isInstanceOf(InvalidMessagingConfiguration.class);
+    }
+
+    @Test
+    void subscribeElements_whenEventDeclaresNoElements_throws() {
+        assertThatThrownBy(() -> synchronousFakeEventBus.subscribeElements(VideoUpdated.class, Video.class, videos -> {
+        })).isInstanceOf(InvalidMessagingConfiguration.class);
+    }
+
     @Test
     void publish_whenEventCannotBeSerialized_throws() {
         synchronousFakeEventBus.subscribe(ObjectMapperIncompatibleEvent.class, (event) -> {
@@ -121,6 +207,10 @@ class SynchronousFakeEventBusTest {
         return VideoUpdated.of(video);
     }
 
+    private static VideoInteractedWith anInteraction(String subtype) {
+        return VideoInteractedWith.builder().userId("user-1").videoId("video-1").subtype(subtype).build();
+    }
+
     @BoclipsEvent("object-mapper-incompatible-event")
     private static class ObjectMapperIncompatibleEvent {
 
@@ -0,0 +1,44 @@
+package com.boclips.eventbus.infrastructure;
+
+import com.boclips.eventbus.events.video.VideoAnalysed;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs all {@link ObjectMapperProviderTest}s against the tuned mapper as well.
+ */
+public class TunedObjectMapperProviderTest extends ObjectMapperProviderTest {
+
+    @Override
+    protected ObjectMapper objectMapper() {
+        return ObjectMapperProvider.getTuned();
+    }
+
+    @Test
+    public void sharedTunedMapperIsOnlyHandedOutWithinTheBus() {
+        assertThat(ObjectMapperProvider.sharedTuned()).isSameAs(ObjectMapperProvider.sharedTuned());
+        assertThat(ObjectMapperProvider.sharedTunedSmile()).isSameAs(ObjectMapperProvider.sharedTunedSmile());
+        assertThat(ObjectMapperProvider.getTuned()).isNotSameAs(ObjectMapperProvider.sharedTuned());
+        assertThat(ObjectMapperProvider.getTunedSmile()).isNotSameAs(ObjectMapperProvider.sharedTunedSmile());
+    }
+
+    @Test
+    public void tunedMapperWritesTheSameJsonAsTheDefaultOne() throws IOException {
+        VideoAnalysed event;
+        try (InputStream stream = getClass().getClassLoader().getResourceAsStream("analysed-video.json")) {
+            event = ObjectMapperProvider.get().readValue(stream, VideoAnalysed.class);
+        }
+        String json = ObjectMapperProvider.get().writeValueAsString(event);
+
+        String tunedJson = ObjectMapperProvider.getTuned().writeValueAsString(event);
+        VideoAnalysed restoredEvent = ObjectMapperProvider.getTuned().readValue(tunedJson, VideoAnalysed.class);
+
+        assertThat(tunedJson).isEqualTo(json);
+        assertThat(ObjectMapperProvider.get().writeValueAsString(restoredEvent)).isEqualTo(json);
+    }
+}